@@ -0,0 +1,269 @@
+/*
+ * Copyright: Carlos F. Heuberger. All rights reserved.
+ *
+ */
+package cfh.jgraphviz;
+
+import static jdk.incubator.foreign.CLinker.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import jdk.incubator.foreign.CLinker;
+import jdk.incubator.foreign.FunctionDescriptor;
+import jdk.incubator.foreign.MemoryAccess;
+import jdk.incubator.foreign.MemoryAddress;
+import jdk.incubator.foreign.MemorySegment;
+import jdk.incubator.foreign.ResourceScope;
+import jdk.incubator.foreign.SymbolLookup;
+
+import cfh.jgraphviz.Dot.Engine;
+import cfh.jgraphviz.Dot.Format;
+
+/**
+ * Backend calling <code>libgvc</code> in-process, no process is started per render.
+ *
+ * Uses the foreign linker of Java 17 (<code>jdk.incubator.foreign</code>, JEP 412), so it is
+ * kept in its own source folder; compile and run with
+ * <code>--add-modules jdk.incubator.foreign --enable-native-access=ALL-UNNAMED</code>.
+ * On other runtimes, or without <code>libgvc</code>, it is not {@link #available() available}
+ * and {@link Dot#backend()} falls back to the process backend.
+ * <p>
+ * The library is searched at the file named by the <code>GvcLibrary</code> property, in
+ * <code>$GRAPHVIZ_HOME/lib</code>, the <code>java.library.path</code> and the usual system folders.
+ * Graphviz is not thread-safe, renders are serialized; a running render cannot be interrupted.
+ *
+ * @author Carlos F. Heuberger, 2026-10-19
+ *
+ */
+public class GvcBackend implements Backend {
+
+    private static final String LIBRARY_PROPERTY = "GvcLibrary";
+    private static final String HOME_ENVIRONMENT = "GRAPHVIZ_HOME";
+
+    private static final List<String> FOLDERS = List.of(
+        "/usr/lib/x86_64-linux-gnu", "/usr/lib/aarch64-linux-gnu", "/usr/lib64", "/usr/lib",
+        "/usr/local/lib", "/opt/homebrew/lib", "/opt/local/lib");
+
+    /** Serializes all calls into Graphviz. */
+    private static final Object LOCK = new Object();
+
+    @Override
+    public boolean available() {
+        try {
+            return Library.INSTANCE != null;
+        } catch (LinkageError ex) {
+            // incubator module missing or changed API of a later runtime
+            return false;
+        }
+    }
+
+    @Override
+    public Capabilities capabilities() {
+        return available() ? Library.INSTANCE.capabilities : Capabilities.UNKNOWN;
+    }
+
+    @Override
+    public void dot(Engine engine, Format format, InputStream dotInput, OutputStream output) throws IOException, InterruptedException {
+        output.write(dot(engine, format, dotInput.readAllBytes()));
+    }
+
+    @Override
+    public byte[] dot(Engine engine, Format format, byte[] dotInput) throws IOException, InterruptedException {
+        return dot(engine, Set.of(format), dotInput).get(format);
+    }
+
+    /** Layout once, rendered in each format. */
+    @Override
+    public Map<Format, byte[]> dot(Engine engine, Set<Format> formats, byte[] dotInput) throws IOException, InterruptedException {
+        if (!available())
+            throw new IllegalStateException("libgvc not available");
+        for (var format : formats) {
+            capabilities().require(engine, format);
+        }
+        if (Thread.interrupted())
+            throw new InterruptedException();
+        return Library.INSTANCE.render(engine, formats, dotInput);
+    }
+
+    //==============================================================================================
+
+    /** Bound functions of the library, {@code null} instance if it cannot be loaded. */
+    private static final class Library {
+
+        static final Library INSTANCE = load();
+
+        private static Library load() {
+            if (!load("cgraph", "libcgraph.so.6") || !load("gvc", "libgvc.so.6"))
+                return null;
+            try {
+                return new Library();
+            } catch (IllegalArgumentException | IllegalStateException ex) {
+                return null;
+            }
+        }
+
+        /** Loads the first library found, {@code false} if none. */
+        private static boolean load(String name, String versioned) {
+            var candidates = new ArrayList<Path>();
+            var property = System.getProperty(LIBRARY_PROPERTY);
+            if (property != null) {
+                var library = Path.of(property);
+                candidates.add(library.resolveSibling(System.mapLibraryName(name)));
+                candidates.add(library.resolveSibling(versioned));
+            }
+            var folders = new ArrayList<String>();
+            var home = System.getenv(HOME_ENVIRONMENT);
+            if (home != null) {
+                folders.add(home + "/lib");
+            }
+            folders.addAll(List.of(System.getProperty("java.library.path", "").split(java.io.File.pathSeparator)));
+            folders.addAll(FOLDERS);
+            for (var folder : folders) {
+                if (!folder.isEmpty()) {
+                    candidates.add(Path.of(folder, System.mapLibraryName(name)));
+                    candidates.add(Path.of(folder, versioned));
+                }
+            }
+            for (var candidate : candidates) {
+                if (Files.isRegularFile(candidate)) {
+                    try {
+                        System.load(candidate.toAbsolutePath().toString());
+                        return true;
+                    } catch (UnsatisfiedLinkError ex) {
+                        // try next
+                    }
+                }
+            }
+            return false;
+        }
+
+        private final MethodHandle agmemread;
+        private final MethodHandle aglasterr;
+        private final MethodHandle agclose;
+        private final MethodHandle gvLayout;
+        private final MethodHandle gvFreeLayout;
+        private final MethodHandle gvRenderData;
+        private final MethodHandle gvFreeRenderData;
+
+        private final MemoryAddress context;
+        private final Capabilities capabilities;
+        /** Whether the length of <code>gvRenderData</code> is an <code>unsigned int</code>, before Graphviz 3. */
+        private final boolean intLength;
+
+        private Library() {
+            var linker = CLinker.getInstance();
+            var lookup = SymbolLookup.loaderLookup();
+            MethodHandle gvContext = bind(linker, lookup, "gvContext",
+                MethodType.methodType(MemoryAddress.class),
+                FunctionDescriptor.of(C_POINTER));
+            MethodHandle gvcVersion = bind(linker, lookup, "gvcVersion",
+                MethodType.methodType(MemoryAddress.class, MemoryAddress.class),
+                FunctionDescriptor.of(C_POINTER, C_POINTER));
+            agmemread = bind(linker, lookup, "agmemread",
+                MethodType.methodType(MemoryAddress.class, MemoryAddress.class),
+                FunctionDescriptor.of(C_POINTER, C_POINTER));
+            aglasterr = bind(linker, lookup, "aglasterr",
+                MethodType.methodType(MemoryAddress.class),
+                FunctionDescriptor.of(C_POINTER));
+            agclose = bind(linker, lookup, "agclose",
+                MethodType.methodType(int.class, MemoryAddress.class),
+                FunctionDescriptor.of(C_INT, C_POINTER));
+            gvLayout = bind(linker, lookup, "gvLayout",
+                MethodType.methodType(int.class, MemoryAddress.class, MemoryAddress.class, MemoryAddress.class),
+                FunctionDescriptor.of(C_INT, C_POINTER, C_POINTER, C_POINTER));
+            gvFreeLayout = bind(linker, lookup, "gvFreeLayout",
+                MethodType.methodType(int.class, MemoryAddress.class, MemoryAddress.class),
+                FunctionDescriptor.of(C_INT, C_POINTER, C_POINTER));
+            gvRenderData = bind(linker, lookup, "gvRenderData",
+                MethodType.methodType(int.class, MemoryAddress.class, MemoryAddress.class, MemoryAddress.class, MemoryAddress.class, MemoryAddress.class),
+                FunctionDescriptor.of(C_INT, C_POINTER, C_POINTER, C_POINTER, C_POINTER, C_POINTER));
+            gvFreeRenderData = bind(linker, lookup, "gvFreeRenderData",
+                MethodType.methodType(void.class, MemoryAddress.class),
+                FunctionDescriptor.ofVoid(C_POINTER));
+
+            try {
+                // one context for the lifetime of the JVM, plugins are loaded only once
+                context = (MemoryAddress) gvContext.invokeExact();
+                if (context.equals(MemoryAddress.NULL))
+                    throw new IllegalStateException("gvContext failed");
+                var version = (MemoryAddress) gvcVersion.invokeExact(context);
+                capabilities = Capabilities.parse(
+                    version.equals(MemoryAddress.NULL) ? null : "graphviz version " + toJavaString(version), null, null);
+            } catch (RuntimeException | Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                throw new IllegalStateException(ex);
+            }
+            intLength = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN && capabilities.version() != null && !capabilities.atLeast(3, 0);
+        }
+
+        private static MethodHandle bind(CLinker linker, SymbolLookup lookup, String name, MethodType type, FunctionDescriptor function) {
+            var symbol = lookup.lookup(name).orElseThrow(() -> new IllegalStateException("missing symbol " + name));
+            return linker.downcallHandle(symbol, type, function);
+        }
+
+        Map<Format, byte[]> render(Engine engine, Set<Format> formats, byte[] script) {
+            synchronized (LOCK) {
+                try (var scope = ResourceScope.newConfinedScope()) {
+                    var text = MemorySegment.allocateNative(script.length + 1, scope);
+                    text.copyFrom(MemorySegment.ofArray(script));
+                    MemoryAccess.setByteAtOffset(text, script.length, (byte) 0);
+
+                    var graph = (MemoryAddress) agmemread.invokeExact(text.address());
+                    if (graph.equals(MemoryAddress.NULL))
+                        throw new RuntimeException("invalid dot script: " + lastError());
+                    try {
+                        var name = toCString(engine.name().toLowerCase(), scope);
+                        if ((int) gvLayout.invokeExact(context, graph, name.address()) != 0)
+                            throw new RuntimeException(engine + " layout failed: " + lastError());
+                        try {
+                            var outputs = new EnumMap<Format, byte[]>(Format.class);
+                            var result = MemorySegment.allocateNative(C_POINTER, scope);
+                            var length = MemorySegment.allocateNative(8, 8, scope);
+                            for (var format : formats) {
+                                MemoryAccess.setLong(length, 0);
+                                var parameter = toCString(format.asParameter(), scope);
+                                var ret = (int) gvRenderData.invokeExact(context, graph, parameter.address(), result.address(), length.address());
+                                if (ret != 0)
+                                    throw new RuntimeException("dot to " + format + " conversion failed, returned: " + ret);
+                                var data = MemoryAccess.getAddress(result);
+                                var size = intLength ? Integer.toUnsignedLong(MemoryAccess.getInt(length)) : MemoryAccess.getLong(length);
+                                try {
+                                    outputs.put(format, data.asSegment(size, scope).toByteArray());
+                                } finally {
+                                    gvFreeRenderData.invokeExact(data);
+                                }
+                            }
+                            return outputs;
+                        } finally {
+                            var ignored = (int) gvFreeLayout.invokeExact(context, graph);
+                        }
+                    } finally {
+                        var ignored = (int) agclose.invokeExact(graph);
+                    }
+                } catch (RuntimeException | Error ex) {
+                    throw ex;
+                } catch (Throwable ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+        }
+
+        private String lastError() throws Throwable {
+            var message = (MemoryAddress) aglasterr.invokeExact();
+            return message.equals(MemoryAddress.NULL) ? "" : toJavaString(message).strip();
+        }
+    }
+}
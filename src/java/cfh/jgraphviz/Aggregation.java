@@ -0,0 +1,377 @@
+/*
+ * Copyright: Carlos F. Heuberger. All rights reserved.
+ *
+ */
+package cfh.jgraphviz;
+
+import static cfh.jgraphviz.Dot.*;
+import static java.util.Objects.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+import cfh.jgraphviz.Dot.Merge;
+import cfh.jgraphviz.EdgeImpl.EdgeKey;
+import cfh.jgraphviz.StatementListImpl.LazyStatement;
+import cfh.jgraphviz.StatementListImpl.Statement;
+import cfh.jgraphviz.StatementListImpl.StatementVisitor;
+
+/**
+ * Level of detail reduction: nodes are collapsed into one summary node per group, 
+ * the edges between groups are merged.
+ * 
+ * Groups are either the top level subgraphs, or given by a key computed from the node ID. 
+ * Expanded groups keep their nodes, inside a subgraph named as the group. The summary node 
+ * of a collapsed group is named {@link #summary(String) <code>group:</code>name}, so it does not 
+ * clash with a node named as the group.
+ * <p>
+ * The statements keep their order, so defaults still apply to the same nodes and edges: 
+ * a group is written where its first node appears, a merged edge where its first edge appears.
+ * Frozen subgraphs and edges connected to them are kept unchanged; attribute and default 
+ * statements inside grouped subgraphs are dropped. Statements added lazily are read once 
+ * while aggregating, stream sources can not be scripted afterwards.
+ *
+ * @author Carlos F. Heuberger, 2026-10-19
+ *
+ */
+public final class Aggregation {
+    
+    /** 
+     * Aggregates the graph by the given key if it has more node and edge statements 
+     * than the threshold, otherwise the graph itself is returned.
+     * Lazily added statements are only counted if the graph was already scripted.
+     */
+    public static Graph aggregate(Graph graph, int threshold, Function<String, String> key) {
+        var counts = ((ScriptedGraph) graph).counts();
+        if (counts.nodes() + counts.edges() <= threshold)
+            return graph;
+        return byKey(graph, key).graph();
+    }
+
+    /** Groups by top level subgraph, the group of anonymous subgraphs is named <code>subgraph N</code>. */
+    public static Aggregation bySubgraph(Graph graph) {
+        return new Aggregation(graph, null);
+    }
+    
+    /** Groups by the key for each node ID, nodes with {@code null} key are not grouped. */
+    public static Aggregation byKey(Graph graph, Function<String, String> key) {
+        return new Aggregation(graph, requireNonNull(key, "null key"));
+    }
+    
+    //==============================================================================================
+    
+    private final GraphImpl source;
+    private final Function<String, String> key;
+    
+    /** Prefix of the summary node IDs. */
+    public static final String SUMMARY_PREFIX = "group:";
+    
+    /** Group by node ID. */
+    private final Map<String, String> groups = new HashMap<>();
+    /** Node IDs by group, in order of appearance. */
+    private final Map<String, List<String>> members = new LinkedHashMap<>();
+    /** First node statement by node ID. */
+    private final Map<String, NodeImpl> nodes = new LinkedHashMap<>();
+    /** Nodes, edges, frozen subgraphs and top level attribute and default statements, in script order. */
+    private final List<Object> order = new ArrayList<>();
+    
+    private final Set<String> expanded = new HashSet<>();
+    private Merge merge = Merge.WEIGHT;
+    private int anonymous = 0;
+    
+    private Aggregation(Graph graph, Function<String, String> key) {
+        if (!(graph instanceof GraphImpl impl)) 
+            throw new IllegalArgumentException("frozen graphs cannot be aggregated");
+        this.source = impl;
+        this.key = key;
+        
+        source.accept(new StatementVisitor() {
+            @Override
+            public void node(NodeImpl node) {
+                nodes.putIfAbsent(node.id, node);
+                assign(node.id, null);
+                order.add(node);
+            }
+            @Override
+            public void edge(EdgeImpl edge) {
+                if (key != null) {
+                    assignEndpoints(edge, null);
+                }
+                order.add(edge);
+            }
+            @Override
+            public void subgraph(ScriptedSubgraph subgraph) {
+                if (subgraph instanceof SubgraphImpl impl) {
+                    String group = null;
+                    if (key == null) {
+                        group = impl.id() != null ? impl.id() : "subgraph " + (++anonymous);
+                    }
+                    collect(impl, group);
+                } else {
+                    order.add(subgraph);
+                }
+            }
+            @Override
+            public void other(Statement statement) {
+                if (statement instanceof LazyStatement lazy) {
+                    read(lazy, this);
+                } else {
+                    order.add(statement);
+                }
+            }
+        });
+    }
+    
+    /** Keeps the nodes of given groups. */
+    public Aggregation expand(String... groups) {
+        expanded.addAll(Arrays.asList(groups));
+        return this;
+    }
+    
+    /** Collapses given, previously expanded, groups. */
+    public Aggregation collapse(String... groups) {
+        expanded.removeAll(Arrays.asList(groups));
+        return this;
+    }
+    
+    /** How the number of merged edges is shown, default {@link Merge#WEIGHT}. */
+    public Aggregation merge(Merge merge) {
+        this.merge = requireNonNull(merge, "null merge");
+        return this;
+    }
+    
+    /** Names of all groups. */
+    public Set<String> groups() {
+        return Collections.unmodifiableSet(members.keySet());
+    }
+    
+    /** ID of the summary node of given group, used when collapsed. */
+    public String summary(String group) {
+        return SUMMARY_PREFIX + requireNonNull(group, "null group");
+    }
+    
+    /** Group of given node, {@code null} if not grouped. */
+    public String group(String id) {
+        return groups.get(id);
+    }
+    
+    /** IDs of the nodes of given group. */
+    public List<String> members(String group) {
+        return Collections.unmodifiableList(members.getOrDefault(group, List.of()));
+    }
+    
+    /** Creates the aggregated graph. */
+    public Graph graph() {
+        var target = source.id() == null ? new GraphImpl() : new GraphImpl(source.id());
+        target.strict(source.isStrict()).directed(source.isDirected()).compact(source.isCompact());
+        
+        // merged edge counts, and the keys of each edge, in order of appearance
+        var merged = new LinkedHashMap<EdgeKey, Integer>();
+        var keys = new HashMap<EdgeImpl, List<EdgeKey>>();
+        for (var item : order) {
+            if (item instanceof EdgeImpl edge) {
+                var edgeKeys = merge(edge);
+                if (edgeKeys != null) {
+                    edgeKeys.forEach(edgeKey -> merged.merge(edgeKey, 1, Integer::sum));
+                    keys.put(edge, edgeKeys);
+                }
+            }
+        }
+        
+        var written = new HashSet<String>();
+        for (var item : order) {
+            if (item instanceof NodeImpl node) {
+                var group = group(node.id);
+                if (group == null) {
+                    target.add(node);
+                } else {
+                    writeGroup(target, group, written);
+                }
+            } else if (item instanceof EdgeImpl edge) {
+                for (var endpoint : List.of(edge.source, edge.target)) {
+                    var ids = endpoints(endpoint);
+                    if (ids != null) {
+                        ids.stream().map(this::group).filter(Objects::nonNull).forEach(group -> writeGroup(target, group, written));
+                    }
+                }
+                var edgeKeys = keys.get(edge);
+                if (edgeKeys == null) {
+                    target.add(edge);
+                } else {
+                    for (var edgeKey : edgeKeys) {
+                        var count = merged.remove(edgeKey);
+                        if (count != null) {
+                            var summary = new EdgeImpl(new NodeImpl(edgeKey.source()), new NodeImpl(edgeKey.target()));
+                            if (count > 1 && merge != Merge.NONE) {
+                                summary.with((EdgeAttr) merge.attribute(count));
+                            }
+                            target.add(summary);
+                        }
+                    }
+                }
+            } else if (item instanceof ScriptedSubgraph subgraph) {
+                target.add(subgraph);
+            } else {
+                target.addStatement((Statement) item);
+            }
+        }
+        return target;
+    }
+    
+    //----------------------------------------------------------------------------------------------
+    
+    private void collect(SubgraphImpl subgraph, String group) {
+        subgraph.accept(new StatementVisitor() {
+            @Override
+            public void node(NodeImpl node) {
+                nodes.putIfAbsent(node.id, node);
+                assign(node.id, group);
+                order.add(node);
+            }
+            @Override
+            public void edge(EdgeImpl edge) {
+                assignEndpoints(edge, group);
+                order.add(edge);
+            }
+            @Override
+            public void subgraph(ScriptedSubgraph nested) {
+                if (nested instanceof SubgraphImpl impl) {
+                    collect(impl, group);
+                } else {
+                    order.add(nested);
+                }
+            }
+            @Override
+            public void other(Statement statement) {
+                // attributes and defaults only kept for the top level
+                if (statement instanceof LazyStatement lazy) {
+                    read(lazy, this);
+                }
+            }
+        });
+    }
+    
+    /** Passes the nodes and edges of the lazy statement to the visitor. */
+    private static void read(LazyStatement lazy, StatementVisitor visitor) {
+        for (var iterator = lazy.elements.get(); iterator.hasNext(); ) {
+            var element = iterator.next();
+            if (element instanceof NodeImpl node) {
+                visitor.node(node);
+            } else if (element instanceof EdgeImpl edge) {
+                visitor.edge(edge);
+            } else {
+                throw new IllegalArgumentException("unexpected element: " + element);
+            }
+        }
+    }
+    
+    /** Adds the subgraph of an expanded group, or the summary node of a collapsed one, if not already written. */
+    private void writeGroup(GraphImpl target, String group, Set<String> written) {
+        if (!written.add(group))
+            return;
+        var ids = members.get(group);
+        if (expanded.contains(group)) {
+            var subgraph = new SubgraphImpl(group);
+            ids.forEach(id -> subgraph.add(nodes.getOrDefault(id, new NodeImpl(id))));
+            target.add(subgraph);
+        } else {
+            target.add(new NodeImpl(summary(group)).with(label(group + " (" + ids.size() + ")")));
+        }
+    }
+    
+    /** 
+     * Keys of the merged edges replacing given edge, {@code null} if the edge is kept unchanged: 
+     * connected to a frozen subgraph or only to kept nodes. 
+     */
+    private List<EdgeKey> merge(EdgeImpl edge) {
+        var sources = endpoints(edge.source);
+        var targets = endpoints(edge.target);
+        if (sources == null || targets == null 
+            || (sources.stream().allMatch(this::kept) && targets.stream().allMatch(this::kept)))
+            return null;
+        var edgeKeys = new ArrayList<EdgeKey>();
+        for (var s : sources) {
+            for (var t : targets) {
+                var from = representative(s);
+                var to = representative(t);
+                if (from.equals(to) && !kept(s))
+                    continue;  // inside collapsed group
+                edgeKeys.add(source.isDirected() || from.compareTo(to) <= 0 ? new EdgeKey(from, to) : new EdgeKey(to, from));
+            }
+        }
+        return edgeKeys;
+    }
+    
+    /** Assigns given group, or the one given by the key, if the node has no group yet. */
+    private void assign(String id, String group) {
+        if (group == null && key != null) {
+            group = key.apply(id);
+        }
+        if (group != null && groups.putIfAbsent(id, group) == null) {
+            members.computeIfAbsent(group, g -> new ArrayList<>()).add(id);
+        }
+    }
+    
+    private void assignEndpoints(EdgeImpl edge, String group) {
+        if (edge.source instanceof NodeImpl node) {
+            assign(node.id, group);
+        }
+        if (edge.target instanceof NodeImpl node) {
+            assign(node.id, group);
+        }
+    }
+    
+    /** IDs of the nodes of an edge endpoint, {@code null} for frozen subgraphs. */
+    private List<String> endpoints(SourceTarget endpoint) {
+        if (endpoint instanceof LazySubgraph lazy) {
+            endpoint = lazy.loaded();
+        }
+        if (endpoint instanceof NodeImpl node)
+            return List.of(node.id);
+        if (!(endpoint instanceof SubgraphImpl subgraph)) 
+            return null;
+        var ids = new ArrayList<String>();
+        subgraph.accept(new StatementVisitor() {
+            @Override
+            public void node(NodeImpl node) {
+                ids.add(node.id);
+            }
+            @Override
+            public void edge(EdgeImpl edge) {
+                var sources = endpoints(edge.source);
+                var targets = endpoints(edge.target);
+                if (sources != null) ids.addAll(sources);
+                if (targets != null) ids.addAll(targets);
+            }
+            @Override
+            public void subgraph(ScriptedSubgraph nested) {
+                var nestedIds = endpoints(nested);
+                if (nestedIds != null) ids.addAll(nestedIds);
+            }
+            @Override
+            public void other(Statement statement) {
+                // no nodes
+            }
+        });
+        return ids.stream().distinct().toList();
+    }
+    
+    /** If the node is not collapsed into its group. */
+    private boolean kept(String id) {
+        var group = groups.get(id);
+        return group == null || expanded.contains(group);
+    }
+    
+    private String representative(String id) {
+        return kept(id) ? id : summary(groups.get(id));
+    }
+}
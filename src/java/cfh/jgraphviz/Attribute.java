@@ -14,19 +14,48 @@ import static java.util.Objects.*;
 sealed abstract class Attribute {
 
     final String name;
-    final Object value;
-    
+    /** Encoded value. */
+    final String value;
+    private final String script;
+    /** Script without redundant quotes, created when first needed. */
+    private String compact = null;
+
     protected Attribute(String name, Object value) {
         this.name = requireNonNull(name, "null name");
-        if (value instanceof String) {
-            this.value = quote((String) value);
-        } else {
-            this.value = requireNonNull(value, "null value");
-        }
+        this.value = Values.encode(value);
+        this.script = quote(name) + "=" + this.value;
+    }
+
+    protected Attribute(AttrName name, String value) {
+        this(name.key, value, name.prefix);
+    }
+
+    /** Value already encoded, {@code prefix} is the quoted name followed by '='. */
+    protected Attribute(String name, String value, String prefix) {
+        this.name = requireNonNull(name, "null name");
+        this.value = requireNonNull(value, "null value");
+        this.script = prefix + value;
     }
-    
+
     String script() {
-        return quote(name) + "=" + value;
+        return script;
+    }
+
+    String script(boolean compact) {
+        if (!compact)
+            return script;
+        var result = this.compact;
+        if (result == null) {
+            var plain = value;
+            if (value.length() > 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                var inner = value.substring(1, value.length()-1);
+                if (inner.indexOf('\\') == -1 && isPlain(inner)) {
+                    plain = inner;
+                }
+            }
+            this.compact = result = Dot.compact(name) + "=" + plain;
+        }
+        return result;
     }
 }
 
@@ -34,10 +63,79 @@ final class GAttribute extends Attribute implements GraphAttr {
     GAttribute(String name, Object value) {
         super(name, value);
     }
+    GAttribute(AttrName name, String value) {
+        super(name, value);
+    }
+}
+
+final class NAttribute extends Attribute implements NodeAttr {
+    NAttribute(AttrName name, String value) {
+        super(name, value);
+    }
+}
+
+final class EAttribute extends Attribute implements EdgeAttr {
+    EAttribute(AttrName name, String value) {
+        super(name, value);
+    }
+}
+
+final class CAttribute extends Attribute implements ClusterAttr {
+    CAttribute(AttrName name, String value) {
+        super(name, value);
+    }
+}
+
+final class GNAttribute extends Attribute implements GraphAttr, NodeAttr {
+    GNAttribute(AttrName name, String value) {
+        super(name, value);
+    }
+}
+
+final class GCAttribute extends Attribute implements GraphAttr, ClusterAttr {
+    GCAttribute(AttrName name, String value) {
+        super(name, value);
+    }
+}
+
+final class NEAttribute extends Attribute implements NodeAttr, EdgeAttr {
+    NEAttribute(AttrName name, String value) {
+        super(name, value);
+    }
+}
+
+final class NCAttribute extends Attribute implements NodeAttr, ClusterAttr {
+    NCAttribute(AttrName name, String value) {
+        super(name, value);
+    }
+}
+
+final class NECAttribute extends Attribute implements NodeAttr, EdgeAttr, ClusterAttr {
+    NECAttribute(AttrName name, String value) {
+        super(name, value);
+    }
+}
+
+final class GNCAttribute extends Attribute implements GraphAttr, NodeAttr, ClusterAttr {
+    GNCAttribute(AttrName name, String value) {
+        super(name, value);
+    }
+}
+
+final class GNEAttribute extends Attribute implements GraphAttr, NodeAttr, EdgeAttr {
+    GNEAttribute(AttrName name, String value) {
+        super(name, value);
+    }
 }
 
 final class GNECAttribute extends Attribute implements GraphAttr, NodeAttr, EdgeAttr, ClusterAttr {
     GNECAttribute(String name, Object value) {
         super(name, value);
     }
+    GNECAttribute(AttrName name, String value) {
+        super(name, value);
+    }
+    GNECAttribute(String name, String value, String prefix) {
+        super(name, value, prefix);
+    }
 }
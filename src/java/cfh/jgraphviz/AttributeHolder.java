@@ -8,7 +8,9 @@ import static java.util.stream.Collectors.*;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * @author Carlos F. Heuberger, 2023-09-27
@@ -25,9 +27,41 @@ abstract class AttributeHolder {
         Arrays.stream(attrs).map(a -> (Attribute) a).forEach(attributes::add);
     }
 
+    /** Adds given attributes, replacing the ones with the same name. */
+    protected void merge(List<Attribute> attrs) {
+        for (var attr : attrs) {
+            attributes.removeIf(a -> a.name.equals(attr.name));
+            attributes.add(attr);
+        }
+    }
+
+    protected List<Attribute> attributes() {
+        return Collections.unmodifiableList(attributes);
+    }
+
     protected String script() {
         return attributes.isEmpty() 
             ? ""
             : attributes.stream().map(Attribute::script).collect(joining(",", " [","]"));
     }
+    
+    /** Script including additional attributes, without redundant quotes and spaces if {@code compact}. */
+    protected String script(List<Attribute> extra, boolean compact) {
+        if (!compact)
+            return script(extra);
+        if (attributes.isEmpty() && extra.isEmpty())
+            return "";
+        return Stream.concat(attributes.stream(), extra.stream())
+            .map(a -> a.script(true))
+            .collect(joining(",", "[","]"));
+    }
+    
+    /** Script including additional attributes, appended after own ones. */
+    protected String script(List<Attribute> extra) {
+        if (extra.isEmpty())
+            return script();
+        return Stream.concat(attributes.stream(), extra.stream())
+            .map(Attribute::script)
+            .collect(joining(",", " [","]"));
+    }
 }
@@ -0,0 +1,323 @@
+/*
+ * Copyright: Carlos F. Heuberger. All rights reserved.
+ *
+ */
+package cfh.jgraphviz;
+
+import static cfh.jgraphviz.Dot.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import cfh.jgraphviz.Dot.Engine;
+import cfh.jgraphviz.Dot.Format;
+
+/**
+ * Runs Graphviz, see {@link Dot#backend()} for its selection.
+ * 
+ * Additional backends, e.g. calling <code>libgvc</code> in-process, are registered as 
+ * {@link java.util.ServiceLoader service} for this interface.
+ *
+ * @author Carlos F. Heuberger, 2026-10-19
+ *
+ */
+public interface Backend {
+
+    /** The backend starting an external Graphviz process for each call, the default. */
+    public static Backend process() {
+        return new ProcessBackend();
+    }
+
+    /** Creates a graph from given input stream and writes to the output stream. */
+    public void dot(Engine engine, Format format, InputStream dotInput, OutputStream output) throws IOException, InterruptedException;
+
+    /** Creates a graph from given script returning the output, may be overridden to avoid copying. */
+    public default byte[] dot(Engine engine, Format format, byte[] dotInput) throws IOException, InterruptedException {
+        var output = new ByteArrayOutputStream();
+        dot(engine, format, new ByteArrayInputStream(dotInput), output);
+        return output.toByteArray();
+    }
+    
+    /** 
+     * Creates the graph in all given formats from given script. 
+     * Default implementation calls {@link #dot(Engine, Format, byte[])} for each format, 
+     * should be overridden if the layout can be done only once.
+     */
+    public default Map<Format, byte[]> dot(Engine engine, Set<Format> formats, byte[] dotInput) throws IOException, InterruptedException {
+        var outputs = new EnumMap<Format, byte[]>(Format.class);
+        for (var format : formats) {
+            outputs.put(format, dot(engine, format, dotInput));
+        }
+        return outputs;
+    }
+    
+    /** If this backend can be used, e.g. the native library was found. */
+    public default boolean available() {
+        return true;
+    }
+    
+    /** Engines, formats and version of the Graphviz used, {@link Capabilities#UNKNOWN} if not known. */
+    public default Capabilities capabilities() {
+        return Capabilities.UNKNOWN;
+    }
+}
+
+/**
+ * Backend starting an external Graphviz process for each call.
+ * The process is destroyed if the calling thread is interrupted.
+ * 
+ * @author Carlos F. Heuberger, 2026-10-19
+ *
+ */
+final class ProcessBackend implements Backend {
+    
+    private static final String PATH_PROPERTY = "GraphPath";
+    private static final String PATH_ENVIRONMENT = "GRAPHVIZ_HOME";
+    
+    private static final String DEFAULT_PATH = "/usr/local/bin/";
+    private static final long PROBE_TIMEOUT_SECONDS = 10;
+    /** Formats whose renderer plugins are probed, the ones most likely rendered by different plugins. */
+    private static final List<Format> PLUGIN_FORMATS = List.of(Format.PNG, Format.SVG, Format.PDF);
+    
+    /** Threads doing the blocking I/O with the processes, one per running process. */
+    private static final ExecutorService IO = Executors.newCachedThreadPool(runnable -> {
+        var thread = new Thread(runnable, "graphviz-io");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    /** Directory of the Graphviz commands, resolved on first use; empty to search the system path. */
+    private static final class Location {
+        static final String PATH = resolve();
+        
+        private static String resolve() {
+            String cmd = System.getProperty(PATH_PROPERTY);
+            if (cmd == null) {
+                String path = System.getenv(PATH_ENVIRONMENT);
+                if (path != null) {
+                    cmd = path + "/bin/";
+                } else if (Files.isExecutable(Path.of(DEFAULT_PATH, "dot"))) {
+                    cmd = DEFAULT_PATH;
+                } else {
+                    return "";
+                }
+            }
+            return cmd.endsWith("/") ? cmd : cmd + "/";
+        }
+    }
+    
+    /** Graphviz installation probed on first use. */
+    private static final class Probe {
+        static final Capabilities CAPABILITIES = probe();
+    }
+    
+    /** Probes the version, formats, engines and plugins; unknown if Graphviz cannot be run. */
+    private static Capabilities probe() {
+        var command = command(Engine.DOT);
+        var processes = new ArrayList<Process>();
+        try {
+            var options = new ArrayList<>(List.of("-V", "-T?", "-K?"));
+            PLUGIN_FORMATS.forEach(format -> options.add("-T" + format.asParameter() + ":?"));
+            for (var option : options) {
+                processes.add(new ProcessBuilder(command, option).redirectErrorStream(true).start());
+            }
+            var plugins = new String[PLUGIN_FORMATS.size()];
+            for (var i = 0; i < plugins.length; i++) {
+                plugins[i] = messages(processes.get(3 + i));
+            }
+            return Capabilities.parse(messages(processes.get(0)), messages(processes.get(1)), messages(processes.get(2)), plugins);
+        } catch (IOException ex) {
+            return Capabilities.UNKNOWN;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return Capabilities.UNKNOWN;
+        } finally {
+            // the ones already started if a later one failed, no effect on terminated ones
+            processes.forEach(Process::destroyForcibly);
+        }
+    }
+    
+    /** Output of a probing process, {@code null} if it does not terminate in time. */
+    private static String messages(Process process) throws IOException, InterruptedException {
+        process.getOutputStream().close();
+        var text = CompletableFuture.supplyAsync(() -> {
+            try (var input = process.getInputStream()) {
+                return new String(input.readAllBytes());
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }, IO);
+        if (!process.waitFor(PROBE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            return null;
+        }
+        try {
+            return text.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof UncheckedIOException io)
+                throw io.getCause();
+            throw ex;
+        }
+    }
+    
+    @Override
+    public Capabilities capabilities() {
+        return Probe.CAPABILITIES;
+    }
+    
+    @Override
+    public void dot(Engine engine, Format format, InputStream dotInput, OutputStream output) throws IOException, InterruptedException {
+        capabilities().require(engine, format);
+        String[] cmd = { command(engine), "-T" + format.asParameter() };
+        Process process = start(new ProcessBuilder(cmd));
+        
+        // the process is destroyed if interrupted, e.g. by cancelling the render
+        int ret = run(process, () -> {
+            try (OutputStream processIn = process.getOutputStream()) {
+                writeAll(dotInput, processIn);
+            }
+            try (InputStream processOut = process.getInputStream()) {
+                writeAll(processOut, output);
+            }
+        });
+        if (ret != 0) {
+            writeAll(process.getErrorStream(), System.err);
+            throw new RuntimeException("dot to " + format + " conversion failed, returned: " + ret);
+        }
+    }
+    
+    /** Uses one process with an output file for each format. */
+    @Override
+    public Map<Format, byte[]> dot(Engine engine, Set<Format> formats, byte[] dotInput) throws IOException, InterruptedException {
+        if (formats.size() == 1) {
+            var format = formats.iterator().next();
+            return Map.of(format, dot(engine, format, dotInput));
+        }
+        for (var format : formats) {
+            capabilities().require(engine, format);
+        }
+        
+        var dir = Files.createTempDirectory("jgraphviz");
+        Throwable failure = null;
+        try {
+            var files = new EnumMap<Format, Path>(Format.class);
+            var cmd = new ArrayList<String>();
+            cmd.add(command(engine));
+            for (var format : formats) {
+                var file = dir.resolve(format.name() + "." + format.asParameter());
+                files.put(format, file);
+                cmd.add("-T" + format.asParameter());
+                cmd.add("-o" + file);
+            }
+            // messages go to a file, so no thread is needed to read them
+            var messages = dir.resolve("messages.txt");
+            Process process = start(new ProcessBuilder(cmd).redirectErrorStream(true).redirectOutput(messages.toFile()));
+            int ret = run(process, () -> {
+                try (OutputStream processIn = process.getOutputStream()) {
+                    processIn.write(dotInput);
+                }
+            });
+            if (ret != 0) {
+                System.err.write(Files.readAllBytes(messages));
+                throw new RuntimeException("dot to " + formats + " conversion failed, returned: " + ret);
+            }
+            
+            var outputs = new EnumMap<Format, byte[]>(Format.class);
+            for (var entry : files.entrySet()) {
+                outputs.put(entry.getKey(), Files.readAllBytes(entry.getValue()));
+            }
+            return outputs;
+        } catch (IOException | InterruptedException | RuntimeException | Error ex) {
+            failure = ex;
+            throw ex;
+        } finally {
+            delete(dir, failure);
+        }
+    }
+    
+    /** 
+     * Runs the I/O with the process in a separate thread and waits for the process to terminate.
+     * The process is destroyed if the I/O fails or the calling thread is interrupted, 
+     * blocking stream operations would ignore the interrupt.
+     * 
+     * @return the exit value
+     */
+    private static int run(Process process, ProcessIO io) throws IOException, InterruptedException {
+        var task = IO.submit(() -> {
+            io.run();
+            return process.waitFor();
+        });
+        try {
+            return task.get();
+        } catch (InterruptedException ex) {
+            process.destroyForcibly();
+            task.cancel(true);
+            throw ex;
+        } catch (ExecutionException ex) {
+            process.destroyForcibly();
+            var cause = ex.getCause();
+            if (cause instanceof IOException exception)
+                throw exception;
+            if (cause instanceof InterruptedException interrupted)
+                throw interrupted;
+            if (cause instanceof RuntimeException runtime)
+                throw runtime;
+            if (cause instanceof Error error)
+                throw error;
+            throw new RuntimeException(cause);
+        }
+    }
+    
+    /** Reads and writes the streams of a process. */
+    @FunctionalInterface
+    private interface ProcessIO {
+        void run() throws IOException;
+    }
+    
+    /** Deletes the temporary directory, failures are added as suppressed to a previous one. */
+    private static void delete(Path dir, Throwable failure) throws IOException {
+        try {
+            try (var paths = Files.list(dir)) {
+                for (var path : (Iterable<Path>) paths::iterator) {
+                    Files.deleteIfExists(path);
+                }
+            }
+            Files.delete(dir);
+        } catch (IOException ex) {
+            if (failure == null)
+                throw ex;
+            failure.addSuppressed(ex);
+        }
+    }
+    
+    private static String command(Engine engine) {
+        return Location.PATH + engine.name().toLowerCase();
+    }
+    
+    private static Process start(ProcessBuilder builder) throws IOException {
+        try {
+            return builder.start();
+        } catch (IOException ex) {
+            System.err.printf("Exception starting %s, check the \"%s\" property or the \"%s\" environment variable%n", 
+                builder.command(), PATH_PROPERTY, PATH_ENVIRONMENT);
+            throw ex;
+        }
+    }
+}
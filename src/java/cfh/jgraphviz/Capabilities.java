@@ -0,0 +1,249 @@
+/*
+ * Copyright: Carlos F. Heuberger. All rights reserved.
+ *
+ */
+package cfh.jgraphviz;
+
+import static java.util.Objects.*;
+import static java.util.stream.Collectors.joining;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import cfh.jgraphviz.Dot.Engine;
+import cfh.jgraphviz.Dot.Format;
+
+/**
+ * Engines, formats, plugins and version of the Graphviz installation used by a {@link Backend}.
+ *
+ * {@link #UNKNOWN} allows every engine and format, but enables no version specific feature.
+ *
+ * @author Carlos F. Heuberger, 2026-10-19
+ *
+ */
+public final class Capabilities {
+
+    /** Capabilities of a backend that cannot be probed. */
+    public static final Capabilities UNKNOWN = new Capabilities(null, null, null, Set.of());
+
+    /** Optional features used automatically if the installed version supports them. */
+    public enum Feature {
+        /** Stochastic gradient descent for neato, <code>mode=sgd</code>, faster than stress majorization; since 2.42. */
+        NEATO_SGD(2, 42);
+
+        final int major;
+        final int minor;
+        private Feature(int major, int minor) {
+            this.major = major;
+            this.minor = minor;
+        }
+    }
+
+    private static final Pattern VERSION = Pattern.compile("version\\s+(\\d+)\\.(\\d+)(?:\\.(\\d+))?");
+    private static final String LIST_START = "Use one of:";
+
+    private final String version;
+    private final int[] numbers;
+    private final Set<Engine> engines;
+    private final Set<Format> formats;
+    private final Set<String> plugins;
+
+    private Capabilities(String version, Set<Engine> engines, Set<Format> formats, Set<String> plugins) {
+        this.version = version;
+        this.numbers = version == null ? null : Arrays.stream(version.split("\\.")).mapToInt(Integer::parseInt).toArray();
+        this.engines = engines;
+        this.formats = formats;
+        this.plugins = plugins;
+    }
+
+    /**
+     * Parses the messages of Graphviz, as returned by <code>dot -V</code>, <code>dot -T?</code> and <code>dot -K?</code>,
+     * and the plugins listed by <code>dot -T<i>format</i>:?</code>.
+     * Missing or unrecognized messages leave the corresponding capability unknown.
+     */
+    static Capabilities parse(String versionText, String formatsText, String enginesText, String... pluginsTexts) {
+        String version = null;
+        if (versionText != null) {
+            var matcher = VERSION.matcher(versionText);
+            if (matcher.find()) {
+                version = matcher.group(1) + "." + matcher.group(2) + "." + requireNonNullElse(matcher.group(3), "0");
+            }
+        }
+
+        Set<Format> formats = null;
+        var plugins = new LinkedHashSet<String>();
+        var formatNames = list(formatsText);
+        if (formatNames != null) {
+            var names = new LinkedHashSet<String>();
+            for (var name : formatNames) {
+                var colon = name.indexOf(':');
+                if (colon != -1) {
+                    plugins.add(name);
+                    name = name.substring(0, colon);
+                }
+                names.add(name);
+            }
+            formats = EnumSet.noneOf(Format.class);
+            for (var format : Format.values()) {
+                if (names.contains(format.asParameter())) {
+                    formats.add(format);
+                }
+            }
+        }
+        for (var pluginsText : pluginsTexts) {
+            var pluginNames = list(pluginsText);
+            if (pluginNames != null) {
+                pluginNames.stream().filter(name -> name.indexOf(':') != -1).forEach(plugins::add);
+            }
+        }
+
+        Set<Engine> engines = null;
+        var engineNames = list(enginesText);
+        if (engineNames != null) {
+            engines = EnumSet.noneOf(Engine.class);
+            for (var engine : Engine.values()) {
+                if (engineNames.contains(engine.name().toLowerCase())) {
+                    engines.add(engine);
+                }
+            }
+        }
+
+        if (version == null && formats == null && engines == null)
+            return UNKNOWN;
+        return new Capabilities(
+            version,
+            engines == null ? null : Collections.unmodifiableSet(engines),
+            formats == null ? null : Collections.unmodifiableSet(formats),
+            Collections.unmodifiableSet(plugins));
+    }
+
+    /** Capabilities from their {@link #text() text form}, e.g. received from another JVM. */
+    public static Capabilities parse(String text) {
+        String version = null;
+        String formats = null;
+        String engines = null;
+        for (var line : (Iterable<String>) requireNonNull(text, "null text").lines()::iterator) {
+            var index = line.indexOf(' ');
+            var value = index == -1 ? "" : line.substring(index+1);
+            switch (index == -1 ? line : line.substring(0, index)) {
+                case "version" -> version = line;
+                case "formats" -> formats = LIST_START + " " + value;
+                case "engines" -> engines = LIST_START + " " + value;
+                default -> throw new IllegalArgumentException("invalid capabilities: " + line);
+            }
+        }
+        return parse(version, formats, engines);
+    }
+
+    /** Names listed after "Use one of:", {@code null} if not found. */
+    private static Set<String> list(String text) {
+        if (text == null)
+            return null;
+        var index = text.lastIndexOf(LIST_START);
+        if (index == -1)
+            return null;
+        var names = text.substring(index + LIST_START.length()).trim();
+        return names.isEmpty() ? null : new LinkedHashSet<>(Arrays.asList(names.split("\\s+")));
+    }
+
+    //==============================================================================================
+
+    /** Whether anything was found by probing. */
+    public boolean known() {
+        return this != UNKNOWN;
+    }
+
+    /** Version like <code>9.0.0</code>, {@code null} if unknown. */
+    public String version() {
+        return version;
+    }
+
+    /** Whether the version is known and at least the given one. */
+    public boolean atLeast(int major, int minor) {
+        if (numbers == null)
+            return false;
+        return numbers[0] > major || (numbers[0] == major && numbers[1] >= minor);
+    }
+
+    /** Available engines, {@code null} if unknown. */
+    public Set<Engine> engines() {
+        return engines;
+    }
+
+    /** Available formats, {@code null} if unknown. */
+    public Set<Format> formats() {
+        return formats;
+    }
+
+    /** Renderer plugins of the probed formats, like <code>png:cairo:cairo</code>, empty if unknown. */
+    public Set<String> plugins() {
+        return plugins;
+    }
+
+    /** Whether given engine is available or the engines are unknown. */
+    public boolean supports(Engine engine) {
+        return engines == null || engines.contains(engine);
+    }
+
+    /** Whether given format is available or the formats are unknown. */
+    public boolean supports(Format format) {
+        return formats == null || formats.contains(format);
+    }
+
+    /** Whether given feature is known to be supported. */
+    public boolean supports(Feature feature) {
+        return atLeast(feature.major, feature.minor);
+    }
+
+    /** Throws an {@code IllegalArgumentException} if the engine or format is known not to be available. */
+    public void require(Engine engine, Format format) {
+        if (!supports(engine))
+            throw new IllegalArgumentException("engine not supported by " + this + ": " + engine);
+        if (!supports(format))
+            throw new IllegalArgumentException("format not supported by " + this + ": " + format);
+    }
+
+    /**
+     * Identifies the installation for cache keys: output of different versions, formats, engines 
+     * or plugins must not be mixed.
+     */
+    public String key() {
+        if (!known())
+            return "";
+        var key = new StringBuilder(String.valueOf(version)).append('|');
+        if (formats != null) {
+            key.append(formats.stream().map(Format::asParameter).collect(joining(",")));
+        }
+        key.append('|');
+        if (engines != null) {
+            key.append(engines.stream().map(engine -> engine.name().toLowerCase()).collect(joining(",")));
+        }
+        return key.append('|').append(String.join(",", plugins)).toString();
+    }
+
+    /** Text form read by {@link #parse(String)}, one line for each known capability, empty if unknown. */
+    public String text() {
+        var text = new StringBuilder();
+        if (version != null) {
+            text.append("version ").append(version).append('\n');
+        }
+        if (formats != null) {
+            var names = new LinkedHashSet<String>(plugins);
+            formats.forEach(format -> names.add(format.asParameter()));
+            text.append("formats ").append(String.join(" ", names)).append('\n');
+        }
+        if (engines != null) {
+            text.append("engines ").append(engines.stream().map(engine -> engine.name().toLowerCase()).collect(joining(" "))).append('\n');
+        }
+        return text.toString();
+    }
+
+    @Override
+    public String toString() {
+        return known() ? "graphviz " + requireNonNullElse(version, "(unknown version)") : "unknown graphviz";
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright: Carlos F. Heuberger. All rights reserved.
+ *
+ */
+package cfh.jgraphviz;
+
+import static java.util.Objects.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import cfh.jgraphviz.Dot.Engine;
+import cfh.jgraphviz.Dot.Format;
+
+/**
+ * Backend joining identical renders that are running at the same time.
+ * 
+ * The first caller starts the render, callers with the same script, engine, format and 
+ * Graphviz {@link Capabilities#key() installation} 
+ * wait for that same result. A waiting caller can be interrupted without affecting the others, 
+ * the render itself is cancelled when no caller is left waiting; the process backend then
+ * destroys the Graphviz process.
+ * Optionally the outputs of the last renders are kept for identical calls, by the same key, so
+ * the output of another Graphviz version or plugin set is never returned.
+ * Each caller receives its own copy of the output.
+ * <p>
+ * Example: <code>Dot.backend(new CoalescingBackend(Dot.backend()))</code>
+ *
+ * @author Carlos F. Heuberger, 2026-10-19
+ *
+ */
+public class CoalescingBackend implements Backend {
+
+    public static final int DEFAULT_RENDERS = Runtime.getRuntime().availableProcessors();
+    
+    private final Backend backend;
+    private final ExecutorService executor;
+    
+    private final Map<Key, Flight> flights = new ConcurrentHashMap<>();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    
+    /** Outputs of the last renders, access ordered; guarded by itself. */
+    private final Map<Key, byte[]> results;
+    
+    /** Runs at most {@link #DEFAULT_RENDERS} renders at once, others wait. */
+    public CoalescingBackend(Backend backend) {
+        this(backend, DEFAULT_RENDERS);
+    }
+    
+    /** Runs at most given number of renders at once, others wait. */
+    public CoalescingBackend(Backend backend, int renders) {
+        this(backend, renders, 0);
+    }
+    
+    /** Runs at most given number of renders at once, keeps the outputs of the last {@code results} renders. */
+    public CoalescingBackend(Backend backend, int renders, int results) {
+        this(backend, newExecutor(renders), results);
+    }
+    
+    /** Uses given executor to run the renders. */
+    public CoalescingBackend(Backend backend, ExecutorService executor) {
+        this(backend, executor, 0);
+    }
+    
+    /** Uses given executor to run the renders, keeps the outputs of the last {@code results} renders. */
+    public CoalescingBackend(Backend backend, ExecutorService executor, int results) {
+        if (results < 0)
+            throw new IllegalArgumentException("invalid results: " + results);
+        this.backend = requireNonNull(backend, "null backend");
+        this.executor = requireNonNull(executor, "null executor");
+        this.results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, byte[]> eldest) {
+                return size() > results;
+            }
+        };
+    }
+    
+    private static ExecutorService newExecutor(int renders) {
+        if (renders < 1)
+            throw new IllegalArgumentException("invalid renders: " + renders);
+        var executor = new ThreadPoolExecutor(renders, renders, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            var thread = new Thread(runnable, "coalesced-render");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+    
+    /** Number of calls that were joined to an already running render. */
+    public long coalesced() {
+        return coalesced.get();
+    }
+    
+    /** Number of calls answered with a kept output. */
+    public long hits() {
+        return hits.get();
+    }
+    
+    /** Number of renders currently running. */
+    public int inFlight() {
+        return flights.size();
+    }
+    
+    @Override
+    public void dot(Engine engine, Format format, InputStream dotInput, OutputStream output) throws IOException, InterruptedException {
+        output.write(dot(engine, format, dotInput.readAllBytes()));
+    }
+    
+    @Override
+    public byte[] dot(Engine engine, Format format, byte[] dotInput) throws IOException, InterruptedException {
+        var key = new Key(backend.capabilities().key(), engine, format, dotInput);
+        synchronized (results) {
+            var output = results.get(key);
+            if (output != null) {
+                hits.incrementAndGet();
+                return output.clone();
+            }
+        }
+        Flight flight;
+        while (true) {
+            var created = new Flight[1];
+            flight = flights.computeIfAbsent(key, k -> created[0] = new Flight(k));
+            if (flight == created[0]) {
+                flight.start();
+            }
+            if (flight.join()) 
+                break;
+            flights.remove(key, flight);  // cancelled meanwhile
+        }
+        
+        try {
+            return flight.result.get().clone();
+        } catch (ExecutionException ex) {
+            var cause = ex.getCause();
+            if (cause instanceof IOException io) 
+                throw io;
+            if (cause instanceof InterruptedException interrupted)
+                throw interrupted;
+            if (cause instanceof RuntimeException runtime) 
+                throw runtime;
+            if (cause instanceof Error error) 
+                throw error;
+            throw new RuntimeException(cause);
+        } catch (CancellationException ex) {
+            throw new InterruptedException("render cancelled");
+        } finally {
+            flight.leave();
+        }
+    }
+    
+    /** Not coalesced, passed to the wrapped backend. */
+    @Override
+    public Map<Format, byte[]> dot(Engine engine, Set<Format> formats, byte[] dotInput) throws IOException, InterruptedException {
+        return backend.dot(engine, formats, dotInput);
+    }
+    
+    @Override
+    public boolean available() {
+        return backend.available();
+    }
+    
+    @Override
+    public Capabilities capabilities() {
+        return backend.capabilities();
+    }
+    
+    //==============================================================================================
+    
+    /** One running render with its waiting callers. */
+    private final class Flight {
+        
+        final CompletableFuture<byte[]> result = new CompletableFuture<>();
+        private final Key key;
+        private Future<?> task = null;
+        
+        private int waiters = 0;
+        private boolean closed = false;
+        
+        Flight(Key key) {
+            this.key = key;
+        }
+        
+        /** Starts the render, must be called after this flight was registered. */
+        synchronized void start() {
+            task = executor.submit(() -> {
+                try {
+                    var output = backend.dot(key.engine, key.format, key.script);
+                    synchronized (results) {
+                        results.put(key, output);
+                    }
+                    result.complete(output);
+                } catch (Throwable ex) {
+                    result.completeExceptionally(ex);
+                } finally {
+                    flights.remove(key, this);
+                }
+            });
+        }
+        
+        /** Adds a waiting caller, {@code false} if this render was already cancelled. */
+        synchronized boolean join() {
+            if (closed)
+                return false;
+            if (waiters++ > 0) {
+                coalesced.incrementAndGet();
+            }
+            return true;
+        }
+        
+        /** Removes a waiting caller, cancelling the render if it was the last one. */
+        synchronized void leave() {
+            waiters -= 1;
+            if (waiters == 0 && !result.isDone()) {
+                closed = true;
+                result.cancel(false);
+                if (task != null) {
+                    task.cancel(true);
+                }
+            }
+        }
+    }
+    
+    //----------------------------------------------------------------------------------------------
+    
+    private static final class Key {
+        
+        final String graphviz;
+        final Engine engine;
+        final Format format;
+        final byte[] script;
+        private final int hash;
+        
+        Key(String graphviz, Engine engine, Format format, byte[] script) {
+            this.graphviz = requireNonNull(graphviz, "null graphviz");
+            this.engine = requireNonNull(engine, "null engine");
+            this.format = requireNonNull(format, "null format");
+            this.script = requireNonNull(script, "null script");
+            this.hash = ((Arrays.hashCode(script) * 31 + engine.hashCode()) * 31 + format.hashCode()) * 31 + graphviz.hashCode();
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key other
+                && hash == other.hash
+                && engine == other.engine
+                && format == other.format
+                && graphviz.equals(other.graphviz)
+                && Arrays.equals(script, other.script);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright: Carlos F. Heuberger. All rights reserved.
+ *
+ */
+package cfh.jgraphviz;
+
+import static java.util.Objects.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collector;
+
+/**
+ * Collects nodes, edges and subgraphs added concurrently by several threads.
+ * 
+ * Each thread appends to its own buffer, so adding does not contend. Each statement is added
+ * with a sequence key, e.g. the index of the event it was created from; 
+ * {@link #addTo(StatementList)} merges the buffers without creating any script, ordered by 
+ * that key, so the order does not depend on the threads. Statements with equal keys should 
+ * be added by the same thread, they keep their insertion order.
+ * The buffers are emptied, the builder can be reused. 
+ * Must only be called after all adding threads are done.
+ * <p>
+ * For streams, {@link #toGraph()} uses the encounter order instead of keys.
+ *
+ * @author Carlos F. Heuberger, 2026-10-19
+ *
+ */
+public final class ConcurrentBuilder {
+    
+    /** 
+     * Collects the nodes, edges and subgraphs of a, possibly parallel, stream into a new graph, 
+     * in encounter order. 
+     */
+    public static Collector<Object, ?, Graph> toGraph() {
+        return Collector.<Object, List<Object>, Graph>of(
+            ArrayList::new, 
+            (list, statement) -> list.add(checked(statement)), 
+            (left, right) -> {
+                left.addAll(right);
+                return left;
+            }, 
+            list -> {
+                var graph = Dot.graph();
+                list.forEach(statement -> add(graph, statement));
+                return graph;
+            });
+    }
+    
+    private static Object checked(Object statement) {
+        if (!(requireNonNull(statement, "null statement") instanceof NodeImpl 
+                || statement instanceof EdgeImpl 
+                || statement instanceof ScriptedSubgraph))
+            throw new IllegalArgumentException("not a node, edge or subgraph: " + statement);
+        return statement;
+    }
+    
+    private static void add(StatementList<?> target, Object statement) {
+        if (statement instanceof NodeImpl node) {
+            target.add(node);
+        } else if (statement instanceof EdgeImpl edge) {
+            target.add(edge);
+        } else {
+            target.add((ScriptedSubgraph) statement);
+        }
+    }
+    
+    //==============================================================================================
+    
+    private final Queue<Buffer> buffers = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Buffer> local = ThreadLocal.withInitial(() -> {
+        var buffer = new Buffer();
+        buffers.add(buffer);
+        return buffer;
+    });
+
+    public ConcurrentBuilder add(long key, Node node) {
+        return append(key, (NodeImpl) requireNonNull(node, "null node"));
+    }
+    
+    public ConcurrentBuilder add(long key, Edge edge) {
+        return append(key, (EdgeImpl) requireNonNull(edge, "null edge"));
+    }
+    
+    public ConcurrentBuilder add(long key, Subgraph subgraph) {
+        return append(key, (ScriptedSubgraph) requireNonNull(subgraph, "null subgraph"));
+    }
+    
+    private ConcurrentBuilder append(long key, Object statement) {
+        var buffer = local.get();
+        synchronized (buffer) {
+            buffer.entries.add(new Entry(key, statement));
+        }
+        return this;
+    }
+    
+    /** Creates a graph with the collected statements. */
+    public Graph build() {
+        return addTo(Dot.graph());
+    }
+    
+    /** Adds the collected statements to given graph or subgraph, ordered by key. */
+    public <T extends StatementList<T>> T addTo(T target) {
+        var entries = new ArrayList<Entry>();
+        for (var buffer : buffers) {
+            synchronized (buffer) {
+                entries.addAll(buffer.entries);
+                buffer.entries.clear();
+            }
+        }
+        // stable, equal keys of one thread keep their order
+        entries.sort(Comparator.comparingLong(Entry::key));
+        entries.forEach(entry -> add(target, entry.statement));
+        return target;
+    }
+    
+    //==============================================================================================
+    
+    private record Entry(long key, Object statement) {}
+    
+    private static final class Buffer {
+        final List<Entry> entries = new ArrayList<>();
+    }
+}
@@ -5,19 +5,19 @@
 package cfh.jgraphviz;
 
 import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.joining;
 
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
-
-import javax.imageio.ImageIO;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
 
 /**
  * @author Carlos F. Heuberger, 2023-03-03
@@ -26,9 +26,9 @@ import javax.imageio.ImageIO;
 public class Dot {
     
     static final int INDENT = 2;
+    static final String INDENTATION = " ".repeat(INDENT);
     
-    private static final String PATH_PROPERTY = "GraphPath";
-    private static final String PATH_ENVIRONMENT = "GRAPHVIZ_HOME";
+    private static final String BACKEND_PROPERTY = "GraphBackend";
 
     /** Node Port. */
     public enum Port {
@@ -43,6 +43,125 @@ public class Dot {
     
     //----------------------------------------------------------------------------------------------
     
+    /** Node shape. */
+    public enum Shape {
+        BOX, POLYGON, ELLIPSE, OVAL, CIRCLE, POINT, EGG, TRIANGLE, PLAINTEXT, PLAIN, DIAMOND, 
+        TRAPEZIUM, PARALLELOGRAM, HOUSE, PENTAGON, HEXAGON, SEPTAGON, OCTAGON, DOUBLECIRCLE, 
+        DOUBLEOCTAGON, TRIPLEOCTAGON, INVTRIANGLE, INVTRAPEZIUM, INVHOUSE, 
+        MDIAMOND("Mdiamond"), MSQUARE("Msquare"), MCIRCLE("Mcircle"), 
+        RECT, RECTANGLE, SQUARE, STAR, NONE, UNDERLINE, CYLINDER, NOTE, TAB, FOLDER, BOX3D, 
+        COMPONENT, RECORD, MRECORD("Mrecord");
+        
+        final String value;
+        private Shape() { this.value = name().toLowerCase(); }
+        private Shape(String value) { this.value = value; }
+    }
+    
+    /** Rank direction. */
+    public enum RankDir {
+        TB, LR, BT, RL;
+        
+        final String value;
+        private RankDir() { this.value = name(); }
+    }
+    
+    /** Edge representation. */
+    public enum Splines {
+        NONE, LINE, POLYLINE, CURVED, ORTHO, SPLINE;
+        
+        final String value;
+        private Splines() { this.value = name().toLowerCase(); }
+    }
+    
+    /** Aspect ratio handling. */
+    public enum Ratio {
+        FILL, COMPRESS, EXPAND, AUTO;
+        
+        final String value;
+        private Ratio() { this.value = name().toLowerCase(); }
+    }
+    
+    /** Edge direction. */
+    public enum Dir {
+        FORWARD, BACK, BOTH, NONE;
+        
+        final String value;
+        private Dir() { this.value = name().toLowerCase(); }
+    }
+    
+    /** Arrow shape. */
+    public enum Arrow {
+        NORMAL, INV, DOT, INVDOT, ODOT, INVODOT, NONE, TEE, EMPTY, INVEMPTY, DIAMOND, ODIAMOND, 
+        EDIAMOND, CROW, BOX, OBOX, OPEN, HALFOPEN, VEE;
+        
+        final String value;
+        private Arrow() { this.value = name().toLowerCase(); }
+    }
+    
+    /** Style of nodes, edges and clusters. */
+    public enum Style {
+        SOLID, DASHED, DOTTED, BOLD, INVIS, FILLED, ROUNDED, DIAGONALS, STRIPED, WEDGED, RADIAL, TAPERED;
+        
+        final String value;
+        private Style() { this.value = name().toLowerCase(); }
+        
+        static String encode(Style... styles) {
+            if (styles.length == 1)
+                return styles[0].value;
+            return Arrays.stream(styles).map(s -> s.value).collect(joining(",", "\"", "\""));
+        }
+    }
+    
+    /** Rank constraint of the nodes of a subgraph. */
+    public enum Rank {
+        SAME, MIN, SOURCE, MAX, SINK;
+        
+        final String value;
+        private Rank() { this.value = name().toLowerCase(); }
+    }
+    
+    /** Handling of clusters by dot. */
+    public enum ClusterRank {
+        LOCAL, GLOBAL, NONE;
+        
+        final String value;
+        private ClusterRank() { this.value = name().toLowerCase(); }
+    }
+    
+    /** Vertical placement of labels. */
+    public enum LabelLoc {
+        TOP("t"), CENTER("c"), BOTTOM("b");
+        
+        final String value;
+        private LabelLoc(String value) { this.value = value; }
+    }
+    
+    /** Horizontal justification of graph and cluster labels. */
+    public enum LabelJust {
+        LEFT("l"), CENTER("c"), RIGHT("r");
+        
+        final String value;
+        private LabelJust(String value) { this.value = value; }
+    }
+    
+    /** Order of edges at their nodes. */
+    public enum Ordering {
+        IN, OUT;
+        
+        final String value;
+        private Ordering() { this.value = name().toLowerCase(); }
+    }
+    
+    /** Drawing order of nodes and edges. */
+    public enum OutputOrder {
+        BREADTHFIRST, NODESFIRST, EDGESFIRST;
+        
+        final String value;
+        private OutputOrder() { this.value = name().toLowerCase(); }
+    }
+    
+    //----------------------------------------------------------------------------------------------
+    
     /** Layout Engine. */
     public enum Engine {
         DOT,NEATO, FDP, SFDP;
@@ -50,6 +169,28 @@ public class Dot {
 
     //----------------------------------------------------------------------------------------------
     
+    /** Merging of parallel edges in non-strict graphs. */
+    public enum Merge {
+        /** Parallel edges are not merged. */
+        NONE(null),
+        /** Merged edge with <code>weight</code> set to the number of edges. */
+        WEIGHT(AttrName.weight),
+        /** Merged edge with <code>penwidth</code> set to the number of edges. */
+        PENWIDTH(AttrName.penwidth),
+        /** Merged edge with <code>label</code> set to the number of edges. */
+        LABEL(AttrName.label);
+        
+        private final AttrName name;
+        private Merge(AttrName name) {
+            this.name = name;
+        }
+        Attribute attribute(int count) {
+            return new EAttribute(requireNonNull(name, "no attribute for " + this), Values.number(count));
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+    
     /* Format shortcuts. */
     public static final Format JPG = Format.JPG;
     public static final Format GIF = Format.GIF;
@@ -61,7 +202,8 @@ public class Dot {
         // TODO enable all formats
         BMP(FormatType.IMAGE),
         // CGImage,
-        // CANON, DOT, XDOT, XDOT1$2, XDOT1$4
+        CANON(FormatType.TEXT),
+        // DOT, XDOT, XDOT1$2, XDOT1$4
         xdot(FormatType.IMAGE),
         EPS(FormatType.IMAGE),
         // EXR,
@@ -70,15 +212,16 @@ public class Dot {
         GIF(FormatType.IMAGE),
         // GTK,
         ICO(FormatType.IMAGE),
-        // IMAP, IMAP_NP, ISMAP, CMAP, CMAPX, CMAPX_NP,
+        IMAP(FormatType.TEXT), IMAP_NP(FormatType.TEXT), ISMAP(FormatType.TEXT), 
+        CMAP(FormatType.TEXT), CMAPX(FormatType.TEXT), CMAPX_NP(FormatType.TEXT),
         JPG(FormatType.IMAGE), 
         JPEG(FormatType.IMAGE),
         // JP2,
-        // JSON, JSON0, DOT_JSON, XDOT_JSON,
-        // PDF,
+        JSON(FormatType.TEXT), JSON0(FormatType.TEXT), DOT_JSON(FormatType.TEXT), XDOT_JSON(FormatType.TEXT),
+        PDF(FormatType.IMAGE),
         // PIC,
         // PCT, PICT,
-        // PLAIN, PLAIN-EXT,
+        PLAIN(FormatType.TEXT), PLAIN_EXT(FormatType.TEXT, "plain-ext"),
         PNG(FormatType.IMAGE),
         // POV,
         // PS,
@@ -96,11 +239,17 @@ public class Dot {
         // XLIB, X11,
         ;
         final FormatType type;
+        private final String parameter;
         private Format(FormatType type) {
+            this(type, null);
+        }
+        private Format(FormatType type, String parameter) {
             this.type = requireNonNull(type, "null type");
+            this.parameter = parameter != null ? parameter : name().toLowerCase().replace("$", ".");
         }
-        String asParameter() { return name().toLowerCase().replace("$", "."); }
+        String asParameter() { return parameter; }
         FormatType type() { return type; }
+        boolean isImage() { return type == FormatType.IMAGE; }
     }
     
     private enum FormatType {
@@ -159,12 +308,523 @@ public class Dot {
     
     /** Creates a <code>label</code> attribute. */
     public static GNECAttribute label(String label) {
-        return new GNECAttribute("label", label);
+        return new GNECAttribute(AttrName.label, quote(label));
     }
     
     /** Creates a <code>fontsize</code> attribute. */
     public static GNECAttribute fontsize(double size) {
-        return new GNECAttribute("fontsize", new BigDecimal(size).setScale(1, RoundingMode.HALF_UP));
+        return new GNECAttribute(AttrName.fontsize, Values.number(size));
+    }
+    
+    /** Creates a <code>fontname</code> attribute. */
+    public static GNECAttribute fontname(String name) {
+        return new GNECAttribute(AttrName.fontname, quote(name));
+    }
+    
+    /** Creates a <code>fontcolor</code> attribute. */
+    public static GNECAttribute fontcolor(String color) {
+        return new GNECAttribute(AttrName.fontcolor, Values.color(color));
+    }
+    
+    /** Creates a <code>fontcolor</code> attribute. */
+    public static GNECAttribute fontcolor(int rgb) {
+        return new GNECAttribute(AttrName.fontcolor, Values.color(rgb));
+    }
+    
+    /** Creates a <code>style</code> attribute. */
+    public static GNECAttribute style(Style... styles) {
+        return new GNECAttribute(AttrName.style, Style.encode(styles));
+    }
+    
+    /** Creates a <code>tooltip</code> attribute. */
+    public static GNECAttribute tooltip(String tooltip) {
+        return new GNECAttribute(AttrName.tooltip, quote(tooltip));
+    }
+    
+    /** Creates a <code>href</code> attribute. */
+    public static GNECAttribute href(String url) {
+        return new GNECAttribute(AttrName.href, quote(url));
+    }
+    
+    /** Creates a <code>id</code> attribute. */
+    public static GNECAttribute id(String id) {
+        return new GNECAttribute(AttrName.id, quote(id));
+    }
+    
+    /** Creates a <code>comment</code> attribute. */
+    public static GNEAttribute comment(String comment) {
+        return new GNEAttribute(AttrName.comment, quote(comment));
+    }
+    
+    /** Creates a <code>margin</code> attribute. */
+    public static GNCAttribute margin(double inches) {
+        return new GNCAttribute(AttrName.margin, Values.number(inches));
+    }
+    
+    /** Creates a <code>gradientangle</code> attribute. */
+    public static GNCAttribute gradientangle(int degrees) {
+        return new GNCAttribute(AttrName.gradientangle, Values.number(degrees));
+    }
+    
+    /** Creates a <code>color</code> attribute. */
+    public static NECAttribute color(String color) {
+        return new NECAttribute(AttrName.color, Values.color(color));
+    }
+    
+    /** Creates a <code>color</code> attribute. */
+    public static NECAttribute color(int rgb) {
+        return new NECAttribute(AttrName.color, Values.color(rgb));
+    }
+    
+    /** Creates a <code>color</code> attribute. */
+    public static NECAttribute color(int rgb, int alpha) {
+        return new NECAttribute(AttrName.color, Values.color(rgb, alpha));
+    }
+    
+    /** Creates a <code>fillcolor</code> attribute. */
+    public static NECAttribute fillcolor(String color) {
+        return new NECAttribute(AttrName.fillcolor, Values.color(color));
+    }
+    
+    /** Creates a <code>fillcolor</code> attribute. */
+    public static NECAttribute fillcolor(int rgb) {
+        return new NECAttribute(AttrName.fillcolor, Values.color(rgb));
+    }
+    
+    /** Creates a <code>fillcolor</code> attribute. */
+    public static NECAttribute fillcolor(int rgb, int alpha) {
+        return new NECAttribute(AttrName.fillcolor, Values.color(rgb, alpha));
+    }
+    
+    /** Creates a <code>penwidth</code> attribute. */
+    public static NECAttribute penwidth(double width) {
+        return new NECAttribute(AttrName.penwidth, Values.number(width));
+    }
+    
+    /** Creates a <code>peripheries</code> attribute. */
+    public static NCAttribute peripheries(int count) {
+        return new NCAttribute(AttrName.peripheries, Values.number(count));
+    }
+    
+    /** Creates a <code>xlabel</code> attribute. */
+    public static NEAttribute xlabel(String label) {
+        return new NEAttribute(AttrName.xlabel, quote(label));
+    }
+    
+    /** Creates a <code>bgcolor</code> attribute. */
+    public static GCAttribute bgcolor(String color) {
+        return new GCAttribute(AttrName.bgcolor, Values.color(color));
+    }
+    
+    /** Creates a <code>bgcolor</code> attribute. */
+    public static GCAttribute bgcolor(int rgb) {
+        return new GCAttribute(AttrName.bgcolor, Values.color(rgb));
+    }
+    
+    /** Creates a <code>URL</code> attribute. */
+    public static GNECAttribute url(String url) {
+        return new GNECAttribute(AttrName.URL, quote(url));
+    }
+    
+    /** Creates a <code>target</code> attribute. */
+    public static GNECAttribute target(String target) {
+        return new GNECAttribute(AttrName.target, quote(target));
+    }
+    
+    /** Creates a <code>nojustify</code> attribute. */
+    public static GNECAttribute nojustify(boolean nojustify) {
+        return new GNECAttribute(AttrName.nojustify, Values.bool(nojustify));
+    }
+    
+    /** Creates a <code>labelloc</code> attribute. */
+    public static GNCAttribute labelloc(LabelLoc loc) {
+        return new GNCAttribute(AttrName.labelloc, loc.value);
+    }
+    
+    /** Creates a <code>labeljust</code> attribute. */
+    public static GCAttribute labeljust(LabelJust just) {
+        return new GCAttribute(AttrName.labeljust, just.value);
+    }
+    
+    /** Creates a <code>ordering</code> attribute. */
+    public static GNAttribute ordering(Ordering ordering) {
+        return new GNAttribute(AttrName.ordering, ordering.value);
+    }
+    
+    /** Creates a <code>rank</code> attribute, for subgraphs. */
+    public static ClusterAttr rank(Rank rank) {
+        return new CAttribute(AttrName.rank, rank.value);
+    }
+    
+    //----------------------------------------------------------------------------------------------
+    
+    /** Creates a <code>shape</code> attribute. */
+    public static NodeAttr shape(Shape shape) {
+        return new NAttribute(AttrName.shape, shape.value);
+    }
+    
+    /** Creates a <code>width</code> attribute. */
+    public static NodeAttr width(double inches) {
+        return new NAttribute(AttrName.width, Values.number(inches));
+    }
+    
+    /** Creates a <code>height</code> attribute. */
+    public static NodeAttr height(double inches) {
+        return new NAttribute(AttrName.height, Values.number(inches));
+    }
+    
+    /** Creates a <code>fixedsize</code> attribute. */
+    public static NodeAttr fixedsize(boolean fixed) {
+        return new NAttribute(AttrName.fixedsize, Values.bool(fixed));
+    }
+    
+    /** Creates a <code>sides</code> attribute. */
+    public static NodeAttr sides(int sides) {
+        return new NAttribute(AttrName.sides, Values.number(sides));
+    }
+    
+    /** Creates a <code>group</code> attribute. */
+    public static NodeAttr group(String group) {
+        return new NAttribute(AttrName.group, quote(group));
+    }
+    
+    /** Creates a <code>pos</code> attribute. */
+    public static NodeAttr pos(double x, double y) {
+        return new NAttribute(AttrName.pos, Values.point(x, y, false));
+    }
+    
+    /** Creates a <code>pos</code> attribute. */
+    public static NodeAttr pos(double x, double y, boolean pinned) {
+        return new NAttribute(AttrName.pos, Values.point(x, y, pinned));
+    }
+    
+    /** Creates a <code>orientation</code> attribute, node rotation in degrees. */
+    public static NodeAttr orientation(double degrees) {
+        return new NAttribute(AttrName.orientation, Values.number(degrees));
+    }
+    
+    /** Creates a <code>regular</code> attribute. */
+    public static NodeAttr regular(boolean regular) {
+        return new NAttribute(AttrName.regular, Values.bool(regular));
+    }
+    
+    /** Creates a <code>distortion</code> attribute. */
+    public static NodeAttr distortion(double distortion) {
+        return new NAttribute(AttrName.distortion, Values.number(distortion));
+    }
+    
+    /** Creates a <code>skew</code> attribute. */
+    public static NodeAttr skew(double skew) {
+        return new NAttribute(AttrName.skew, Values.number(skew));
+    }
+    
+    /** Creates a <code>image</code> attribute. */
+    public static NodeAttr image(String file) {
+        return new NAttribute(AttrName.image, quote(file));
+    }
+    
+    /** Creates a <code>pin</code> attribute. */
+    public static NodeAttr pin(boolean pin) {
+        return new NAttribute(AttrName.pin, Values.bool(pin));
+    }
+    
+    //----------------------------------------------------------------------------------------------
+    
+    /** Creates a <code>weight</code> attribute. */
+    public static EdgeAttr weight(double weight) {
+        return new EAttribute(AttrName.weight, Values.number(weight));
+    }
+    
+    /** Creates a <code>minlen</code> attribute. */
+    public static EdgeAttr minlen(int ranks) {
+        return new EAttribute(AttrName.minlen, Values.number(ranks));
+    }
+    
+    /** Creates a <code>len</code> attribute. */
+    public static EdgeAttr len(double inches) {
+        return new EAttribute(AttrName.len, Values.number(inches));
+    }
+    
+    /** Creates a <code>dir</code> attribute. */
+    public static EdgeAttr dir(Dir dir) {
+        return new EAttribute(AttrName.dir, dir.value);
+    }
+    
+    /** Creates a <code>arrowhead</code> attribute. */
+    public static EdgeAttr arrowhead(Arrow arrow) {
+        return new EAttribute(AttrName.arrowhead, arrow.value);
+    }
+    
+    /** Creates a <code>arrowtail</code> attribute. */
+    public static EdgeAttr arrowtail(Arrow arrow) {
+        return new EAttribute(AttrName.arrowtail, arrow.value);
+    }
+    
+    /** Creates a <code>arrowsize</code> attribute. */
+    public static EdgeAttr arrowsize(double scale) {
+        return new EAttribute(AttrName.arrowsize, Values.number(scale));
+    }
+    
+    /** Creates a <code>constraint</code> attribute. */
+    public static EdgeAttr constraint(boolean constraint) {
+        return new EAttribute(AttrName.constraint, Values.bool(constraint));
+    }
+    
+    /** Creates a <code>headlabel</code> attribute. */
+    public static EdgeAttr headlabel(String label) {
+        return new EAttribute(AttrName.headlabel, quote(label));
+    }
+    
+    /** Creates a <code>taillabel</code> attribute. */
+    public static EdgeAttr taillabel(String label) {
+        return new EAttribute(AttrName.taillabel, quote(label));
+    }
+    
+    /** Creates a <code>lhead</code> attribute. */
+    public static EdgeAttr lhead(String cluster) {
+        return new EAttribute(AttrName.lhead, quote(cluster));
+    }
+    
+    /** Creates a <code>ltail</code> attribute. */
+    public static EdgeAttr ltail(String cluster) {
+        return new EAttribute(AttrName.ltail, quote(cluster));
+    }
+    
+    /** Creates a <code>headport</code> attribute. */
+    public static EdgeAttr headport(Port port) {
+        return new EAttribute(AttrName.headport, port.format());
+    }
+    
+    /** Creates a <code>tailport</code> attribute. */
+    public static EdgeAttr tailport(Port port) {
+        return new EAttribute(AttrName.tailport, port.format());
+    }
+    
+    /** Creates a <code>samehead</code> attribute. */
+    public static EdgeAttr samehead(String group) {
+        return new EAttribute(AttrName.samehead, quote(group));
+    }
+    
+    /** Creates a <code>sametail</code> attribute. */
+    public static EdgeAttr sametail(String group) {
+        return new EAttribute(AttrName.sametail, quote(group));
+    }
+    
+    /** Creates a <code>headclip</code> attribute. */
+    public static EdgeAttr headclip(boolean clip) {
+        return new EAttribute(AttrName.headclip, Values.bool(clip));
+    }
+    
+    /** Creates a <code>tailclip</code> attribute. */
+    public static EdgeAttr tailclip(boolean clip) {
+        return new EAttribute(AttrName.tailclip, Values.bool(clip));
+    }
+    
+    /** Creates a <code>decorate</code> attribute. */
+    public static EdgeAttr decorate(boolean decorate) {
+        return new EAttribute(AttrName.decorate, Values.bool(decorate));
+    }
+    
+    /** Creates a <code>labelangle</code> attribute. */
+    public static EdgeAttr labelangle(double degrees) {
+        return new EAttribute(AttrName.labelangle, Values.number(degrees));
+    }
+    
+    /** Creates a <code>labeldistance</code> attribute. */
+    public static EdgeAttr labeldistance(double scale) {
+        return new EAttribute(AttrName.labeldistance, Values.number(scale));
+    }
+    
+    /** Creates a <code>labelfontsize</code> attribute. */
+    public static EdgeAttr labelfontsize(double size) {
+        return new EAttribute(AttrName.labelfontsize, Values.number(size));
+    }
+    
+    /** Creates a <code>labelfontname</code> attribute. */
+    public static EdgeAttr labelfontname(String name) {
+        return new EAttribute(AttrName.labelfontname, quote(name));
+    }
+    
+    /** Creates a <code>labelfontcolor</code> attribute. */
+    public static EdgeAttr labelfontcolor(String color) {
+        return new EAttribute(AttrName.labelfontcolor, Values.color(color));
+    }
+    
+    /** Creates a <code>labelfloat</code> attribute. */
+    public static EdgeAttr labelfloat(boolean labelfloat) {
+        return new EAttribute(AttrName.labelfloat, Values.bool(labelfloat));
+    }
+    
+    //----------------------------------------------------------------------------------------------
+    
+    /** Creates a <code>rankdir</code> attribute. */
+    public static GraphAttr rankdir(RankDir dir) {
+        return new GAttribute(AttrName.rankdir, dir.value);
+    }
+    
+    /** Creates a <code>ranksep</code> attribute. */
+    public static GraphAttr ranksep(double inches) {
+        return new GAttribute(AttrName.ranksep, Values.number(inches));
+    }
+    
+    /** Creates a <code>nodesep</code> attribute. */
+    public static GraphAttr nodesep(double inches) {
+        return new GAttribute(AttrName.nodesep, Values.number(inches));
+    }
+    
+    /** Creates a <code>splines</code> attribute. */
+    public static GraphAttr splines(Splines splines) {
+        return new GAttribute(AttrName.splines, splines.value);
+    }
+    
+    /** Creates a <code>ratio</code> attribute. */
+    public static GraphAttr ratio(Ratio ratio) {
+        return new GAttribute(AttrName.ratio, ratio.value);
+    }
+    
+    /** Creates a <code>ratio</code> attribute. */
+    public static GraphAttr ratio(double ratio) {
+        return new GAttribute(AttrName.ratio, Values.number(ratio));
+    }
+    
+    /** Creates a <code>size</code> attribute. */
+    public static GraphAttr size(double width, double height) {
+        return new GAttribute(AttrName.size, Values.point(width, height, false));
+    }
+    
+    /** Creates a <code>size</code> attribute. */
+    public static GraphAttr size(double width, double height, boolean fill) {
+        return new GAttribute(AttrName.size, Values.point(width, height, fill));
+    }
+    
+    /** Creates a <code>dpi</code> attribute. */
+    public static GraphAttr dpi(double dpi) {
+        return new GAttribute(AttrName.dpi, Values.number(dpi));
+    }
+    
+    /** Creates a <code>pad</code> attribute. */
+    public static GraphAttr pad(double inches) {
+        return new GAttribute(AttrName.pad, Values.number(inches));
+    }
+    
+    /** Creates a <code>concentrate</code> attribute. */
+    public static GraphAttr concentrate(boolean concentrate) {
+        return new GAttribute(AttrName.concentrate, Values.bool(concentrate));
+    }
+    
+    /** Creates a <code>compound</code> attribute. */
+    public static GraphAttr compound(boolean compound) {
+        return new GAttribute(AttrName.compound, Values.bool(compound));
+    }
+    
+    /** Creates a <code>newrank</code> attribute. */
+    public static GraphAttr newrank(boolean newrank) {
+        return new GAttribute(AttrName.newrank, Values.bool(newrank));
+    }
+    
+    /** Creates a <code>overlap</code> attribute. */
+    public static GraphAttr overlap(String mode) {
+        return new GAttribute(AttrName.overlap, quote(mode));
+    }
+    
+    /** Creates a <code>start</code> attribute. */
+    public static GraphAttr start(String start) {
+        return new GAttribute(AttrName.start, quote(start));
+    }
+    
+    /** Creates a <code>mode</code> attribute. */
+    public static GraphAttr mode(String mode) {
+        return new GAttribute(AttrName.mode, quote(mode));
+    }
+    
+    /** Creates a <code>maxiter</code> attribute. */
+    public static GraphAttr maxiter(int iterations) {
+        return new GAttribute(AttrName.maxiter, Values.number(iterations));
+    }
+    
+    /** Creates a <code>mclimit</code> attribute. */
+    public static GraphAttr mclimit(double factor) {
+        return new GAttribute(AttrName.mclimit, Values.number(factor));
+    }
+    
+    /** Creates a <code>nslimit</code> attribute. */
+    public static GraphAttr nslimit(double factor) {
+        return new GAttribute(AttrName.nslimit, Values.number(factor));
+    }
+    
+    /** Creates a <code>layout</code> attribute. */
+    public static GraphAttr layout(Engine engine) {
+        return new GAttribute(AttrName.layout, engine.name().toLowerCase());
+    }
+    
+    /** Creates a <code>clusterrank</code> attribute. */
+    public static GraphAttr clusterrank(ClusterRank rank) {
+        return new GAttribute(AttrName.clusterrank, rank.value);
+    }
+    
+    /** Creates a <code>outputorder</code> attribute. */
+    public static GraphAttr outputorder(OutputOrder order) {
+        return new GAttribute(AttrName.outputorder, order.value);
+    }
+    
+    /** Creates a <code>rotate</code> attribute. */
+    public static GraphAttr rotate(int degrees) {
+        return new GAttribute(AttrName.rotate, Values.number(degrees));
+    }
+    
+    /** Creates a <code>center</code> attribute. */
+    public static GraphAttr center(boolean center) {
+        return new GAttribute(AttrName.center, Values.bool(center));
+    }
+    
+    /** Creates a <code>forcelabels</code> attribute. */
+    public static GraphAttr forcelabels(boolean force) {
+        return new GAttribute(AttrName.forcelabels, Values.bool(force));
+    }
+    
+    /** Creates a <code>remincross</code> attribute. */
+    public static GraphAttr remincross(boolean remincross) {
+        return new GAttribute(AttrName.remincross, Values.bool(remincross));
+    }
+    
+    /** Creates a <code>searchsize</code> attribute. */
+    public static GraphAttr searchsize(int size) {
+        return new GAttribute(AttrName.searchsize, Values.number(size));
+    }
+    
+    /** Creates a <code>sep</code> attribute. */
+    public static GraphAttr sep(double points) {
+        return new GAttribute(AttrName.sep, Values.number(points));
+    }
+    
+    /** Creates a <code>esep</code> attribute. */
+    public static GraphAttr esep(double points) {
+        return new GAttribute(AttrName.esep, Values.number(points));
+    }
+    
+    /** Creates a <code>K</code> attribute. */
+    public static GCAttribute K(double k) {
+        return new GCAttribute(AttrName.K, Values.number(k));
+    }
+    
+    /** Creates a <code>mindist</code> attribute. */
+    public static GraphAttr mindist(double mindist) {
+        return new GAttribute(AttrName.mindist, Values.number(mindist));
+    }
+    
+    /** Creates a <code>quantum</code> attribute. */
+    public static GraphAttr quantum(double inches) {
+        return new GAttribute(AttrName.quantum, Values.number(inches));
+    }
+    
+    /** Creates a <code>imagepath</code> attribute. */
+    public static GraphAttr imagepath(String path) {
+        return new GAttribute(AttrName.imagepath, quote(path));
+    }
+    
+    /** Creates a <code>epsilon</code> attribute. */
+    public static GraphAttr epsilon(double epsilon) {
+        return new GAttribute(AttrName.epsilon, Values.number(epsilon));
     }
     
     /** Creates an arbitrary attribute, mostly for testing. */
@@ -184,50 +844,73 @@ public class Dot {
     
     //==============================================================================================
     
-    private static final String PATH;
-    static {
-        String cmd = System.getProperty(PATH_PROPERTY);
-        if (cmd == null) {
-            String path = System.getenv(PATH_ENVIRONMENT);
-            if (path == null) {
-                cmd = "/usr/local/bin/";
-                System.err.printf("neither \"%s\" property nor \"%s\" environmrnt variables set, using \"%s\"",
-                    PATH_PROPERTY, PATH_ENVIRONMENT, cmd);
-            } else {
-                cmd = path + "/bin/";
+    private static volatile Backend backend = null;
+    
+    /** 
+     * Backend used to run Graphviz, selected on first use: the class named by the 
+     * <code>GraphBackend</code> property, else the first available backend registered as service, 
+     * else the one starting an external process.
+     */
+    public static Backend backend() {
+        var selected = backend;
+        if (selected == null) {
+            synchronized (Dot.class) {
+                selected = backend;
+                if (selected == null) {
+                    backend = selected = selectBackend();
+                }
             }
         }
-        if (!cmd.endsWith("/")) {
-            cmd += "/";
+        return selected;
+    }
+    
+    /** Capabilities of the Graphviz used by the current backend, probed on first call. */
+    public static Capabilities capabilities() {
+        return backend().capabilities();
+    }
+    
+    /** Changes the backend used to run Graphviz. */
+    public static void backend(Backend backend) {
+        Dot.backend = requireNonNull(backend, "null backend");
+    }
+    
+    private static Backend selectBackend() {
+        var name = System.getProperty(BACKEND_PROPERTY);
+        if (name != null) {
+            try {
+                var selected = (Backend) Class.forName(name).getDeclaredConstructor().newInstance();
+                if (selected.available())
+                    return selected;
+                System.err.printf("backend %s not available, using default%n", name);
+            } catch (ReflectiveOperationException | ClassCastException ex) {
+                System.err.printf("Exception creating backend %s, using default: %s%n", name, ex);
+            }
         }
-        PATH = cmd;
+        for (var iterator = ServiceLoader.load(Backend.class).iterator(); ; ) {
+            try {
+                if (!iterator.hasNext())
+                    break;
+                var provider = iterator.next();
+                if (provider.available())
+                    return provider;
+            } catch (ServiceConfigurationError | LinkageError ex) {
+                // provider needing modules or a runtime not present, e.g. GvcBackend
+            }
+        }
+        return new ProcessBackend();
     }
     
     /** Creates a graph from given input stream and writes to the output stream. */
     public static void dot(Engine engine, Format format, InputStream dotInput, OutputStream output) throws IOException, InterruptedException {
-        String[] cmd = { PATH + engine.name().toLowerCase(), "-T" + format.asParameter() };
-        Process process;
-        try {
-            process = Runtime.getRuntime().exec(cmd);
-        } catch (IOException ex) {
-            System.err.printf("Exception starting %s, check the \"%s\" property or the \"%s\" environment variable%n", 
-                Arrays.toString(cmd), PATH_PROPERTY, PATH_ENVIRONMENT);
-            throw ex;
-        }
-
-        try (OutputStream processIn = process.getOutputStream()) {
-            writeAll(dotInput, processIn);
-        }
-
-        try (InputStream processOut = process.getInputStream()) {
-            writeAll(processOut, output);
-        }
+        backend().dot(engine, format, dotInput, output);
+    }
 
-        int ret = process.waitFor();
-        if (ret != 0) {
-            writeAll(process.getErrorStream(), System.err);
-            throw new RuntimeException("dot to " + format + " conversion failed, returned: " + ret);
+    /** Creates the graph in all given formats from given string, with only one layout run. */
+    public static Map<Format, byte[]> dot(Engine engine, Set<Format> formats, String dotInput) throws IOException, InterruptedException {
+        if (formats.isEmpty()) {
+            throw new IllegalArgumentException("no format");
         }
+        return backend().dot(engine, formats, dotInput.getBytes(StandardCharsets.UTF_8));
     }
 
     /** Creates a graph from given string and writes to the output stream. */
@@ -255,22 +938,17 @@ public class Dot {
         dot(Engine.DOT, Format.SVG, dotInput, svgOutput);
     }
     
-    /** Creates a graph using the Dot engine from given stringreturning an image. */
+    /** Creates a graph using the Dot engine from given stringreturning an image, see {@link Images}. */
     public static BufferedImage dotToImage(Format format, String dotInput) throws IOException, InterruptedException {
-        return dotToImage(Engine.DOT, format, dotInput);
+        return Images.dotToImage(Engine.DOT, format, dotInput);
     }
     
-    /** Creates a graph from given stringreturning an image. */
+    /** Creates a graph from given stringreturning an image, see {@link Images}. */
     public static BufferedImage dotToImage(Engine engine, Format format, String dotInput) throws IOException, InterruptedException {
-        if (format.type != FormatType.IMAGE) {
-            throw new IllegalArgumentException("non-image format: " + format);
-        }
-        var output = new ByteArrayOutputStream();
-        dot(engine, format, dotInput, output);
-        return ImageIO.read(new ByteArrayInputStream(output.toByteArray()));
+        return Images.dotToImage(engine, format, dotInput);
     }
     
-    private static void writeAll(InputStream input, OutputStream output) throws IOException {
+    static void writeAll(InputStream input, OutputStream output) throws IOException {
         var buffer = new byte[4096];
 
         int count;
@@ -285,6 +963,41 @@ public class Dot {
         return '"'  + id.replace("\"", "\\\"") + '"';
     }
     
+    /** ID only quoted if needed, as used by compact scripts. */
+    static String compact(String id) {
+        return isPlain(id) ? id : quote(id);
+    }
+    
+    /** If the ID is an identifier or a numeral and no keyword, so it needs no quotes. */
+    static boolean isPlain(String id) {
+        if (id.isEmpty())
+            return false;
+        var first = id.charAt(0);
+        if (first == '-' || first == '.' || Character.isDigit(first)) {
+            var dot = false;
+            var digits = false;
+            for (var i = (first == '-' ? 1 : 0); i < id.length(); i++) {
+                var ch = id.charAt(i);
+                if (ch == '.' && !dot) {
+                    dot = true;
+                } else if (ch >= '0' && ch <= '9') {
+                    digits = true;
+                } else {
+                    return false;
+                }
+            }
+            return digits;
+        }
+        for (var i = 0; i < id.length(); i++) {
+            var ch = id.charAt(i);
+            if (!(ch == '_' || ch >= 0x80 || ch >= 'a' && ch <= 'z' || ch >= 'A' && ch <= 'Z' || i > 0 && ch >= '0' && ch <= '9'))
+                return false;
+        }
+        return !KEYWORDS.contains(id.toLowerCase());
+    }
+    
+    private static final Set<String> KEYWORDS = Set.of("node", "edge", "graph", "digraph", "subgraph", "strict");
+    
     //==============================================================================================
     
     private Dot() {
@@ -4,8 +4,11 @@
  */
 package cfh.jgraphviz;
 
+import static cfh.jgraphviz.Dot.*;
 import static java.util.Objects.*;
 
+import java.util.List;
+
 /**
  * @author Carlos F. Heuberger, 2023-03-03
  *
@@ -36,10 +39,41 @@ class EdgeImpl extends AttributeHolder implements Edge {
     }
     
     String script(GraphImpl graph) {
+        return script(graph, List.of());
+    }
+    
+    /** Script with additional attributes appended, used for merged edges. */
+    String script(GraphImpl graph, List<Attribute> extra) {
+        if (graph.isCompact())
+            return endpoint(source, graph) + operator(graph) + endpoint(target, graph) + super.script(extra, true);
         return "%s %s %s%s".formatted(
-            source.script(graph),
-            graph.isDirected() ? "->" : "--",
-            target.script(graph),
-            super.script());
+            endpoint(source, graph),
+            operator(graph),
+            endpoint(target, graph),
+            super.script(extra));
+    }
+    
+    static String operator(GraphImpl graph) {
+        return graph.isDirected() ? "->" : "--";
+    }
+    
+    private static String endpoint(SourceTarget endpoint, GraphImpl graph) {
+        return endpoint instanceof NodeImpl node ? node.reference(graph) : endpoint.script(graph);
+    }
+    
+    /** Key identifying parallel edges, {@code null} if not connecting two nodes. */
+    EdgeKey key(GraphImpl graph) {
+        if (source instanceof NodeImpl s && target instanceof NodeImpl t) {
+            if (graph.isDirected() || s.id.compareTo(t.id) <= 0) {
+                return new EdgeKey(s.id, t.id);
+            } else {
+                return new EdgeKey(t.id, s.id);
+            }
+        }
+        return null;
+    }
+    
+    /** Source and target node IDs, ordered for un-directed graphs. */
+    record EdgeKey(String source, String target) {
     }
 }
@@ -0,0 +1,103 @@
+/*
+ * Copyright: Carlos F. Heuberger. All rights reserved.
+ *
+ */
+package cfh.jgraphviz;
+
+import static java.util.Objects.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import cfh.jgraphviz.Dot.Merge;
+import cfh.jgraphviz.EdgeImpl.EdgeKey;
+
+/**
+ * Removes duplicated edges before scripting.
+ *
+ * For strict graphs, edges connecting the same nodes are reduced to the first one,
+ * the attributes of the removed edges are appended to it (same as Graphviz does).
+ * For non-strict graphs, parallel edges with equal attributes are merged into one edge
+ * with its count set as given by {@link Merge}.
+ * Each statement list is reduced on its own: an edge statement in a subgraph makes its nodes
+ * members of that subgraph, so it is not merged into an edge of another list.
+ *
+ * @author Carlos F. Heuberger, 2026-10-19
+ *
+ */
+final class EdgeReduction {
+
+    /** Creates the reduction for the edges of given list, {@code null} if nothing to be reduced. */
+    static EdgeReduction of(GraphImpl graph, StatementListImpl<?> list) {
+        if (!graph.isStrict() && graph.merge() == Merge.NONE)
+            return null;
+        var reduction = new EdgeReduction(graph);
+        list.collectEdges(reduction);
+        return reduction;
+    }
+
+    //==============================================================================================
+
+    private final GraphImpl graph;
+    private final Map<Object, Group> groups = new HashMap<>();
+
+    private EdgeReduction(GraphImpl graph) {
+        this.graph = requireNonNull(graph, "null graph");
+    }
+
+    /** Registers an edge, must be called in the same order the edges will be scripted. */
+    void collect(EdgeImpl edge) {
+        var key = key(edge);
+        if (key != null) {
+            var group = groups.get(key);
+            if (group == null) {
+                groups.put(key, new Group());
+            } else {
+                group.count += 1;
+                if (graph.isStrict()) {
+                    group.extra.addAll(edge.attributes());
+                }
+            }
+        }
+    }
+
+    /** Script for given edge, {@code null} if it was merged into a previous edge. */
+    String script(EdgeImpl edge) {
+        var extra = extra(edge);
+        return extra == null ? null : edge.script(graph, extra);
+    }
+
+    /** Attributes to append to given edge, {@code null} if it was merged into a previous edge. */
+    List<Attribute> extra(EdgeImpl edge) {
+        var key = key(edge);
+        if (key == null)
+            return List.of();
+
+        var group = groups.get(key);
+        if (group == null || group.scripted)
+            return group == null ? List.of() : null;
+        group.scripted = true;
+
+        if (group.count > 1 && !graph.isStrict())
+            return List.of(graph.merge().attribute(group.count));
+        return group.extra;
+    }
+
+    private Object key(EdgeImpl edge) {
+        EdgeKey key = edge.key(graph);
+        if (key == null || graph.isStrict())
+            return key;
+        // only edges with same attributes are parallel
+        return List.of(key, edge.script());
+    }
+
+    //----------------------------------------------------------------------------------------------
+
+    private static final class Group {
+        int count = 1;
+        boolean scripted = false;
+        final List<Attribute> extra = new ArrayList<>();
+    }
+}
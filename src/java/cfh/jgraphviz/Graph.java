@@ -7,14 +7,31 @@ package cfh.jgraphviz;
 import static java.util.Objects.*;
 
 import static cfh.jgraphviz.Dot.*;
+import static java.util.stream.Collectors.joining;
 
 import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.Formatter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import cfh.jgraphviz.Dot.Engine;
 import cfh.jgraphviz.Dot.Format;
+import cfh.jgraphviz.Dot.Merge;
 
 /**
  * @author Carlos F. Heuberger, 2023-03-03
@@ -28,25 +45,203 @@ public interface Graph extends StatementList<Graph> {
     public default Graph directed() { return directed(true); }
     public Graph directed(boolean directed);
 
+    /** Merges parallel edges with same attributes, ignored for strict graphs. */
+    public default Graph mergeEdges() { return mergeEdges(Merge.WEIGHT); }
+    public Graph mergeEdges(Merge merge);
+    
+    /** 
+     * Scripts edges as chains and fan-outs, without indentation and redundant quotes; 
+     * smaller and faster to parse, with the same meaning.
+     */
+    public default Graph compact() { return compact(true); }
+    public Graph compact(boolean compact);
+
     public Graph with(GraphAttr... attributes);
     
+    /** Number of node, edge and subgraph statements, including the ones inside subgraphs. */
+    public record Counts(int nodes, int edges, int subgraphs) {
+    }
+    
+    /** Statement counts; lazily added statements as read the last time they were scripted, none before. */
+    public Counts counts();
+    
+    /** 
+     * Index of the nodes and edges added directly to this graph, created on first call.
+     * Once created, nodes are merged by ID, each being scripted only once.
+     */
+    public NodeIndex index();
+    
+    /** 
+     * Immutable snapshot of this graph, with its script created only once.
+     * Can be shared between threads, and is equal to snapshots with the same script.
+     */
+    public Graph freeze();
+    
     public Graph visit(Consumer<String> visitor);
+    
+    /** Writes the script, statements added lazily are read while writing. */
+    public void write(Appendable out) throws IOException;
 
+    /** Renders into a decoded image, loads AWT, see {@link Images}. */
     public BufferedImage image(Format format);
+    /** Renders into a decoded image, loads AWT, see {@link Images}. */
     public BufferedImage image(Engine engine, Format format);
 
+    /** Renders this graph, returning the output bytes. */
+    public byte[] render(Engine engine, Format format);
+
+    /** Renders this graph into {@code output}, the script is streamed to Graphviz while being written. */
+    public void render(Engine engine, Format format, OutputStream output);
+
+    /** 
+     * Renders this graph with given backend into {@code output}, the graph attributes in 
+     * {@code overrides} replace the graph's own ones.
+     */
+    public void render(Backend backend, Engine engine, Format format, List<? extends GraphAttr> overrides, OutputStream output) 
+    throws IOException, InterruptedException;
+
+    /** Renders this graph in all given formats, using only one layout run. */
+    public Map<Format, byte[]> render(Engine engine, Set<Format> formats);
+
+    /** Renders a preview image fitting into given pixels, loads AWT, see {@link Images}. */
+    public default BufferedImage preview(int width, int height) { return preview(Engine.DOT, width, height, false); }
+    /** Renders a preview image fitting into given pixels, {@code draft} for a cheaper, less refined layout. */
+    public BufferedImage preview(Engine engine, int width, int height, boolean draft);
+
+}
+
+/**
+ * Graph providing its script, the rendering is based on it.
+ * 
+ * @author Carlos F. Heuberger, 2026-10-19
+ *
+ */
+sealed interface ScriptedGraph extends Graph permits GraphImpl, FrozenGraph {
+    
+    /** Buffer size for streaming the script. */
+    static final int PIPE_SIZE = 64 * 1024;
+    
+    /** Script with given graph attributes appended, overriding the graph's own ones. */
+    public String script(List<? extends GraphAttr> overrides);
+    
+    public default String script() {
+        return script(List.of());
+    }
+    
+    /** Script encoded as UTF-8, must not be changed. */
+    public default byte[] bytes() {
+        return script().getBytes(StandardCharsets.UTF_8);
+    }
+    
+    /** Writes the script with given graph attributes appended. */
+    public default void write(Appendable out, List<? extends GraphAttr> overrides) throws IOException {
+        out.append(script(overrides));
+    }
+    
+    @Override
+    public default void write(Appendable out) throws IOException {
+        write(out, List.of());
+    }
+    
+    @Override
+    public default Graph visit(Consumer<String> visitor) {
+        var text = script();
+        visitor.accept(text);
+        return this;
+    }
+    
+    @Override
+    public default BufferedImage image(Format format) {
+        return this.image(Engine.DOT, format);
+    }
+
+    @Override
+    public default BufferedImage image(Engine engine, Format format) {
+        return Images.image(this, engine, format);
+    }
+
+    @Override
+    public default byte[] render(Engine engine, Format format) {
+        var output = new ByteArrayOutputStream();
+        render(engine, format, output);
+        return output.toByteArray();
+    }
+
+    @Override
+    public default void render(Engine engine, Format format, OutputStream output) {
+        requireNonNull(output, "null output");
+        try {
+            render(Dot.backend(), engine, format, List.of(), output);
+        } catch (IOException | InterruptedException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+    
+    /** 
+     * Renders with given graph attributes appended into {@code output}, 
+     * the script is streamed to Graphviz while being written.
+     */
+    @Override
+    public default void render(Backend backend, Engine engine, Format format, List<? extends GraphAttr> overrides, OutputStream output) 
+    throws IOException, InterruptedException {
+        var failure = new AtomicReference<Exception>();
+        Thread writer;
+        try (var input = new PipedInputStream(PIPE_SIZE)) {
+            var pipe = new PipedOutputStream(input);
+            writer = new Thread(() -> {
+                try (var out = new BufferedWriter(new OutputStreamWriter(pipe, StandardCharsets.UTF_8))) {
+                    write(out, overrides);
+                } catch (IOException | RuntimeException ex) {
+                    failure.set(ex);
+                }
+            }, "graph writer");
+            writer.setDaemon(true);
+            writer.start();
+            backend.dot(engine, format, input, output);
+        }
+        writer.join();  // input closed, writer cannot block anymore
+        if (failure.get() instanceof RuntimeException ex) {
+            throw ex;
+        } else if (failure.get() instanceof IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public default Map<Format, byte[]> render(Engine engine, Set<Format> formats) {
+        if (formats.isEmpty()) {
+            throw new IllegalArgumentException("no format");
+        }
+        try {
+            return Dot.backend().dot(engine, formats, bytes());
+        } catch (IOException | InterruptedException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    @Override
+    public default BufferedImage preview(Engine engine, int width, int height, boolean draft) {
+        return Images.preview(this, engine, width, height, draft);
+    }
+    
+    /** Graph attribute statement for the overrides. */
+    static String overrides(List<? extends GraphAttr> overrides) {
+        return overrides.stream().map(a -> ((Attribute) a).script()).collect(joining(",", "graph [", "]"));
+    }
 }
 
 /**
  * @author Carlos F. Heuberger, 2023-03-03
  *
  */
-class GraphImpl extends StatementListImpl<Graph> implements Graph {
+final class GraphImpl extends StatementListImpl<Graph> implements ScriptedGraph {
 
     private final String id;
     
     private boolean strict = false;
     private boolean directed = false;
+    private Merge merge = Merge.NONE;
+    private boolean compact = false;
     
     GraphImpl() {
         id = null;
@@ -56,6 +251,11 @@ class GraphImpl extends StatementListImpl<Graph> implements Graph {
         this.id = requireNonNull(id, "null id");
     }
     
+    /** ID of this graph, {@code null} if anonymous. */
+    String id() {
+        return id;
+    }
+    
     @Override
     public Graph strict(boolean b) {
         // TODO allowed
@@ -79,52 +279,211 @@ class GraphImpl extends StatementListImpl<Graph> implements Graph {
     }
     
     @Override
-    public Graph with(GraphAttr... attributes) {
-        super.with(attributes);
+    public Graph compact(boolean b) {
+        this.compact = b;
         return this;
     }
     
+    boolean isCompact() {
+        return compact;
+    }
+    
     @Override
-    public Graph visit(Consumer<String> visitor) {
-        var text = script();
-        visitor.accept(text);
+    public Graph mergeEdges(Merge merge) {
+        this.merge = requireNonNull(merge, "null merge");
         return this;
     }
     
+    Merge merge() {
+        return merge;
+    }
+    
     @Override
-    public BufferedImage image(Format format) {
-        return this.image(Engine.DOT, format);
+    public Graph with(GraphAttr... attributes) {
+        super.with(attributes);
+        return this;
+    }
+    
+    @Override
+    public Graph freeze() {
+        return new FrozenGraph(this);
     }
 
     @Override
-    public BufferedImage image(Engine engine, Format format) {
-        // TODO engines
-        var text = script();
+    public String script(List<? extends GraphAttr> overrides) {
+        var builder = new StringBuilder();
         try {
-            return Dot.dotToImage(engine, format, text);
-        } catch (IOException | InterruptedException ex) {
-            throw new RuntimeException(ex);
+            write(builder, overrides);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);  // not thrown by StringBuilder
         }
+        return builder.toString();
     }
-
-    private String script() {
-        var formatter = new Formatter();
-        try (formatter) {
-            if (strict) {
-                formatter.format("strict ");
-            }
-            formatter.format("%s ", directed ? "digraph" : "graph");
-            if (id != null) {
-                formatter.format("%s ", quote(id));
-            }
-            formatter.format("""
-                {
-                %s
-                }
-                """, 
-                scriptStatements(this).indent(INDENT).stripTrailing());  // remove trailing linefeed
-
-            return formatter.toString();
+    
+    @Override
+    public void write(Appendable out, List<? extends GraphAttr> overrides) throws IOException {
+        if (strict) {
+            out.append("strict ");
         }
+        out.append(directed ? "digraph " : "graph ");
+        if (id != null) {
+            out.append(compact ? Dot.compact(id) : quote(id)).append(compact ? "" : " ");
+        }
+        out.append("{\n");
+        var indent = compact ? "" : INDENTATION;
+        writeStatements(out, this, indent);
+        if (!overrides.isEmpty()) {
+            out.append(indent).append(ScriptedGraph.overrides(overrides)).append('\n');
+        }
+        out.append("}\n");
+    }
+}
+
+/**
+ * Immutable graph, holding the script of the graph it was created from.
+ * 
+ * @author Carlos F. Heuberger, 2026-10-19
+ *
+ */
+final class FrozenGraph implements ScriptedGraph {
+    
+    private final String text;
+    private final byte[] bytes;
+    private final int hash;
+    private final Counts counts;
+    
+    FrozenGraph(GraphImpl graph) {
+        this(graph.script(), graph.counts());
+    }
+    
+    FrozenGraph(String text, Counts counts) {
+        this.text = requireNonNull(text, "null text");
+        this.bytes = text.getBytes(StandardCharsets.UTF_8);
+        this.hash = Arrays.hashCode(bytes);
+        this.counts = requireNonNull(counts, "null counts");
+    }
+    
+    @Override
+    public Graph graphdefs(GraphAttr... defaults) {
+        throw new UnsupportedOperationException("frozen graph");
+    }
+    
+    @Override
+    public Graph nodedefs(NodeAttr... defaults) {
+        throw new UnsupportedOperationException("frozen graph");
+    }
+    
+    @Override
+    public Graph edgedefs(EdgeAttr... defaults) {
+        throw new UnsupportedOperationException("frozen graph");
+    }
+    
+    @Override
+    public Graph add(Node node) {
+        throw new UnsupportedOperationException("frozen graph");
+    }
+    
+    @Override
+    public Graph add(Edge edge) {
+        throw new UnsupportedOperationException("frozen graph");
+    }
+    
+    @Override
+    public Graph add(Subgraph subgraph) {
+        throw new UnsupportedOperationException("frozen graph");
+    }
+    
+    @Override
+    public Graph addNodes(Supplier<? extends Iterator<? extends Node>> nodes) {
+        throw new UnsupportedOperationException("frozen graph");
+    }
+    
+    @Override
+    public Graph addEdges(Supplier<? extends Iterator<? extends Edge>> edges) {
+        throw new UnsupportedOperationException("frozen graph");
+    }
+    
+    @Override
+    public Graph strict(boolean strict) {
+        throw new UnsupportedOperationException("frozen graph");
+    }
+    
+    @Override
+    public Graph directed(boolean directed) {
+        throw new UnsupportedOperationException("frozen graph");
+    }
+    
+    @Override
+    public Graph mergeEdges(Merge merge) {
+        throw new UnsupportedOperationException("frozen graph");
+    }
+    
+    @Override
+    public Graph compact(boolean compact) {
+        throw new UnsupportedOperationException("frozen graph");
+    }
+    
+    @Override
+    public Graph with(GraphAttr... attributes) {
+        throw new UnsupportedOperationException("frozen graph");
+    }
+    
+    @Override
+    public NodeIndex index() {
+        throw new UnsupportedOperationException("frozen graph");
+    }
+    
+    @Override
+    public Graph freeze() {
+        return this;
+    }
+    
+    @Override
+    public String script() {
+        return text;
+    }
+    
+    /** Overrides are inserted before the closing brace. */
+    @Override
+    public String script(List<? extends GraphAttr> overrides) {
+        if (overrides.isEmpty())
+            return text;
+        var end = text.lastIndexOf('}');
+        return text.substring(0, end) + ScriptedGraph.overrides(overrides).indent(INDENT) + text.substring(end);
+    }
+    
+    @Override
+    public byte[] bytes() {
+        return bytes;
+    }
+    
+    /** The script already exists, no need to stream it. */
+    @Override
+    public void render(Backend backend, Engine engine, Format format, List<? extends GraphAttr> overrides, OutputStream output) 
+    throws IOException, InterruptedException {
+        var input = overrides.isEmpty() ? bytes : script(overrides).getBytes(StandardCharsets.UTF_8);
+        backend.dot(engine, format, new ByteArrayInputStream(input), output);
+    }
+    
+    @Override
+    public Counts counts() {
+        return counts;
+    }
+    
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+    
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof FrozenGraph other
+            && hash == other.hash
+            && Arrays.equals(bytes, other.bytes);
+    }
+    
+    @Override
+    public String toString() {
+        return text;
     }
 }
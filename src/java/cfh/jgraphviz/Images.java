@@ -0,0 +1,110 @@
+/*
+ * Copyright: Carlos F. Heuberger. All rights reserved.
+ *
+ */
+package cfh.jgraphviz;
+
+import static java.util.Objects.*;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import cfh.jgraphviz.Dot.Engine;
+import cfh.jgraphviz.Dot.Format;
+
+/**
+ * Rendering into decoded images, the only part of the core package using AWT and ImageIO.
+ *
+ * The rest of the core only produces bytes, so headless applications rendering
+ * e.g. SVG never load these classes; Swing components are in {@code cfh.jgraphviz.ui}. 
+ *
+ * @author Carlos F. Heuberger, 2026-10-19
+ *
+ */
+public final class Images {
+
+    /** Renders the graph using the Dot engine into an image. */
+    public static BufferedImage image(Graph graph, Format format) {
+        return image(graph, Engine.DOT, format);
+    }
+
+    /** Renders the graph into an image, the script is streamed to Graphviz. */
+    public static BufferedImage image(Graph graph, Engine engine, Format format) {
+        requireNonNull(graph, "null graph");
+        if (!format.isImage()) {
+            throw new IllegalArgumentException("non-image format: " + format);
+        }
+        try {
+            var output = new ByteArrayOutputStream();
+            ((ScriptedGraph) graph).render(Dot.backend(), engine, format, List.of(), output);
+            return read(output.toByteArray());
+        } catch (IOException | InterruptedException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /** Renders a preview image fitting into given pixels, {@code draft} for a cheaper, less refined layout. */
+    public static BufferedImage preview(Graph graph, Engine engine, int width, int height, boolean draft) {
+        requireNonNull(graph, "null graph");
+        var backend = Dot.backend();
+        var attributes = Preview.attributes(engine, backend.capabilities(), width, height, draft);
+        try {
+            var output = new ByteArrayOutputStream();
+            ((ScriptedGraph) graph).render(backend, engine, Preview.FORMAT, attributes, output);
+            return read(output.toByteArray(), width, height);
+        } catch (IOException | InterruptedException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /** Creates a graph from given string returning an image. */
+    public static BufferedImage dotToImage(Engine engine, Format format, String dotInput) throws IOException, InterruptedException {
+        if (!format.isImage()) {
+            throw new IllegalArgumentException("non-image format: " + format);
+        }
+        var output = Dot.backend().dot(engine, format, dotInput.getBytes(StandardCharsets.UTF_8));
+        return read(output);
+    }
+
+    /** Decodes the rendered output, {@code null} if no decoder for it is available. */
+    public static BufferedImage read(byte[] data) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(data));
+    }
+
+    /** Decodes the image, subsampling it if larger than given pixels. */
+    public static BufferedImage read(byte[] data, int width, int height) throws IOException {
+        if (width < 1 || height < 1)
+            throw new IllegalArgumentException("invalid size: " + width + "x" + height);
+        try (var input = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            var readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext())
+                return null;
+            var reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int sampling = Math.max(
+                    (reader.getWidth(0) + width - 1) / width,
+                    (reader.getHeight(0) + height - 1) / height);
+                var param = reader.getDefaultReadParam();
+                if (sampling > 1) {
+                    param.setSourceSubsampling(sampling, sampling, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    //==============================================================================================
+
+    private Images() {
+        throw new AssertionError("do not instanciate");
+    }
+}
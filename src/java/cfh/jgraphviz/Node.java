@@ -7,6 +7,8 @@ package cfh.jgraphviz;
 import static cfh.jgraphviz.Dot.*;
 import static java.util.Objects.*;
 
+import java.util.List;
+
 /**
  * @author Carlos F. Heuberger, 2023-03-03
  *
@@ -43,8 +45,25 @@ class NodeImpl extends AttributeHolder implements NodeId, SourceTarget {
         return this;
     }
     
+    /** Node with the same ID and attributes, changed independently of this one. */
+    NodeImpl copy() {
+        var copy = new NodeImpl(id);
+        copy.addAll(attributes().toArray(Attr[]::new));
+        return copy;
+    }
+    
     @Override
     public String script(GraphImpl graph) {
-        return quote(id) + super.script();
+        if (graph.isCompact())
+            return reference(graph) + super.script(List.of(), true);
+        return reference(graph) + super.script();
+    }
+    
+    /** 
+     * ID as used by edges: its attributes belong to the node statement only, since merged 
+     * or {@link NodeIndex#update(String, NodeAttr...) updated} nodes are scripted once.
+     */
+    String reference(GraphImpl graph) {
+        return graph.isCompact() ? compact(id) : quote(id);
     }
 }
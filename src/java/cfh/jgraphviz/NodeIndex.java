@@ -0,0 +1,193 @@
+/*
+ * Copyright: Carlos F. Heuberger. All rights reserved.
+ *
+ */
+package cfh.jgraphviz;
+
+import static java.util.Objects.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of the nodes and edges added directly to a graph, see {@link Graph#index()}.
+ * 
+ * With the index, nodes are merged by ID: the index keeps its own copy of each node,
+ * adding a node with an ID already added only adds its attributes to that copy, so each node
+ * is scripted once. The added nodes themselves are never changed.
+ *
+ * @author Carlos F. Heuberger, 2026-10-19
+ *
+ */
+public interface NodeIndex {
+
+    /** Number of nodes, including the ones only used by edges. */
+    public int size();
+    
+    /** If a node with given ID was added or used by an edge. */
+    public boolean contains(String id);
+    
+    /** 
+     * The node with given ID as scripted, {@code null} if unknown. A node only used by edges 
+     * is added without attributes.
+     */
+    public Node node(String id);
+    
+    /** Adds attributes to the node with given ID, adding the node if not already added. */
+    public Node update(String id, NodeAttr... attributes);
+    
+    /** Number of edges starting or ending at given node. */
+    public int degree(String id);
+    
+    /** Number of edges ending at given node. */
+    public int inDegree(String id);
+    
+    /** Number of edges starting at given node. */
+    public int outDegree(String id);
+    
+    /** Edges starting or ending at given node, in the order they were added. */
+    public List<Edge> edges(String id);
+}
+
+/**
+ * @author Carlos F. Heuberger, 2026-10-19
+ *
+ */
+final class NodeIndexImpl implements NodeIndex {
+    
+    private final StatementListImpl<?> owner;
+    
+    private final Map<String, Integer> indices = new HashMap<>();
+    /** Copy of the added nodes by index, {@code null} if only used by edges. */
+    private final List<NodeImpl> nodes = new ArrayList<>();
+    private final List<IntList> outgoing = new ArrayList<>();
+    private final List<IntList> incoming = new ArrayList<>();
+    private final List<EdgeImpl> edges = new ArrayList<>();
+    
+    NodeIndexImpl(StatementListImpl<?> owner) {
+        this.owner = requireNonNull(owner, "null owner");
+    }
+    
+    /** Registers the node, returns the copy to be scripted, {@code null} if merged into an already added one. */
+    NodeImpl addNode(NodeImpl node) {
+        int index = index(node.id);
+        var existing = nodes.get(index);
+        if (existing == null) {
+            var copy = node.copy();
+            nodes.set(index, copy);
+            return copy;
+        }
+        existing.merge(node.attributes());
+        return null;
+    }
+    
+    void addEdge(EdgeImpl edge) {
+        int number = edges.size();
+        edges.add(edge);
+        if (edge.source instanceof NodeImpl source) {
+            outgoing.get(index(source.id)).add(number);
+        }
+        if (edge.target instanceof NodeImpl target) {
+            incoming.get(index(target.id)).add(number);
+        }
+    }
+    
+    @Override
+    public int size() {
+        return nodes.size();
+    }
+    
+    @Override
+    public boolean contains(String id) {
+        return indices.containsKey(id);
+    }
+    
+    @Override
+    public Node node(String id) {
+        var index = indices.get(id);
+        if (index == null)
+            return null;
+        if (nodes.get(index) == null) {
+            owner.add(new NodeImpl(id));  // only used by edges
+        }
+        return nodes.get(index);
+    }
+    
+    @Override
+    public Node update(String id, NodeAttr... attributes) {
+        var node = (NodeImpl) node(id);
+        if (node == null) {
+            owner.add(new NodeImpl(id).with(attributes));
+            return node(id);
+        }
+        node.merge(Arrays.stream(attributes).map(Attribute.class::cast).toList());
+        return node;
+    }
+    
+    @Override
+    public int degree(String id) {
+        return inDegree(id) + outDegree(id);
+    }
+    
+    @Override
+    public int inDegree(String id) {
+        var index = indices.get(id);
+        return index == null ? 0 : incoming.get(index).size;
+    }
+    
+    @Override
+    public int outDegree(String id) {
+        var index = indices.get(id);
+        return index == null ? 0 : outgoing.get(index).size;
+    }
+    
+    @Override
+    public List<Edge> edges(String id) {
+        var index = indices.get(id);
+        if (index == null)
+            return List.of();
+        var out = outgoing.get(index);
+        var in = incoming.get(index);
+        var numbers = new int[out.size + in.size];
+        System.arraycopy(out.values, 0, numbers, 0, out.size);
+        System.arraycopy(in.values, 0, numbers, out.size, in.size);
+        Arrays.sort(numbers);
+        var result = new ArrayList<Edge>(numbers.length);
+        for (var i = 0; i < numbers.length; i++) {
+            if (i == 0 || numbers[i] != numbers[i-1]) {  // loops are in both lists
+                result.add(edges.get(numbers[i]));
+            }
+        }
+        return result;
+    }
+    
+    private int index(String id) {
+        var index = indices.get(id);
+        if (index == null) {
+            index = nodes.size();
+            indices.put(id, index);
+            nodes.add(null);
+            outgoing.add(new IntList());
+            incoming.add(new IntList());
+        }
+        return index;
+    }
+    
+    //==============================================================================================
+    
+    /** Growable list of {@code int}, avoiding boxing. */
+    private static final class IntList {
+        int[] values = new int[2];
+        int size = 0;
+        
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
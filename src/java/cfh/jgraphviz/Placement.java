@@ -0,0 +1,299 @@
+/*
+ * Copyright: Carlos F. Heuberger. All rights reserved.
+ *
+ */
+package cfh.jgraphviz;
+
+import static cfh.jgraphviz.Dot.*;
+import static java.util.Objects.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import cfh.jgraphviz.Dot.Engine;
+import cfh.jgraphviz.StatementListImpl.Statement;
+import cfh.jgraphviz.StatementListImpl.StatementVisitor;
+
+/**
+ * Initial placement computed in Java, so force directed engines start from a good layout
+ * instead of random positions.
+ *
+ * Uses pivot MDS (Brandes and Pich): distances from a few pivot nodes are computed
+ * by breadth first search in parallel and projected onto the two main axes.
+ * Only the nodes and edges added directly to the graph are considered, not the ones
+ * of subgraphs or added lazily; nodes already having a <code>pos</code> keep it.
+ * The given graph is not changed, the result is a {@link Graph#freeze() frozen} copy.
+ *
+ * @author Carlos F. Heuberger, 2026-10-19
+ *
+ */
+public final class Placement {
+
+    public static final int PIVOTS = 50;
+
+    private static final int ITERATIONS = 100;
+    private static final long SEED = 1;
+
+    /** Frozen copy with <code>pos</code> hints for the nodes and the <code>start</code> mode for the engine. */
+    public static Graph warmStart(Graph graph, Engine engine) {
+        return warmStart(graph, engine, PIVOTS);
+    }
+
+    /** Frozen copy with <code>pos</code> hints using the given number of pivots. */
+    public static Graph warmStart(Graph graph, Engine engine, int pivots) {
+        requireNonNull(graph, "null graph");
+        if (engine == Engine.DOT)
+            throw new IllegalArgumentException("not a force directed engine: " + engine);
+        if (pivots < 2)
+            throw new IllegalArgumentException("invalid pivots: " + pivots);
+        if (!(graph instanceof GraphImpl impl))
+            throw new UnsupportedOperationException("frozen graph");
+
+        var neighbours = new Neighbours();
+        impl.accept(neighbours);
+        var positions = layout(neighbours.adjacency(), pivots);
+        var scale = scale(engine);
+
+        // later node statements add to the attributes of the node
+        var text = impl.script();
+        var end = text.lastIndexOf('}');
+        var script = new StringBuilder(text.length() + 40 * positions.length);
+        script.append(text, 0, end);
+        var indent = impl.isCompact() ? "" : INDENTATION;
+        for (var i = 0; i < positions.length; i++) {
+            var id = neighbours.ids.get(i);
+            if (!neighbours.positioned.contains(id)) {
+                var hint = (Attribute) pos(scale * positions[i][0], scale * positions[i][1]);
+                script.append(indent).append(quote(id)).append(" [").append(hint.script()).append("]\n");
+            }
+        }
+        // fixed seed: positioned nodes start at their pos, others at reproducible random ones
+        script.append(indent).append(ScriptedGraph.overrides(List.of(start(Long.toString(SEED))))).append('\n');
+        script.append(text, end, text.length());
+        return new FrozenGraph(script.toString(), impl.counts());
+    }
+
+    /** Inches per unit edge length: neato's default <code>len</code>, fdp's and sfdp's default <code>K</code>. */
+    private static double scale(Engine engine) {
+        return switch (engine) {
+            case NEATO -> 1.0;
+            case FDP, SFDP -> 0.3;
+            case DOT -> throw new IllegalArgumentException("not a force directed engine: " + engine);
+        };
+    }
+
+    //==============================================================================================
+
+    /** Collects the node IDs and neighbours of the statements, without changing them. */
+    private static final class Neighbours implements StatementVisitor {
+
+        final Map<String, Integer> indices = new HashMap<>();
+        final List<String> ids = new ArrayList<>();
+        final List<Set<Integer>> neighbours = new ArrayList<>();
+        final Set<String> positioned = new HashSet<>();
+
+        @Override
+        public void node(NodeImpl node) {
+            index(node.id);
+            if (node.attributes().stream().anyMatch(a -> a.name.equals(AttrName.pos.key))) {
+                positioned.add(node.id);
+            }
+        }
+
+        @Override
+        public void edge(EdgeImpl edge) {
+            if (edge.source instanceof NodeImpl source && edge.target instanceof NodeImpl target) {
+                int s = index(source.id);
+                int t = index(target.id);
+                if (s != t) {
+                    neighbours.get(s).add(t);
+                    neighbours.get(t).add(s);
+                }
+            } else {
+                // edge to a subgraph, only its node endpoint is placed
+                if (edge.source instanceof NodeImpl source) {
+                    index(source.id);
+                }
+                if (edge.target instanceof NodeImpl target) {
+                    index(target.id);
+                }
+            }
+        }
+
+        @Override
+        public void subgraph(ScriptedSubgraph subgraph) {
+            // not placed
+        }
+
+        @Override
+        public void other(Statement statement) {
+            // not placed
+        }
+
+        private int index(String id) {
+            var index = indices.get(id);
+            if (index == null) {
+                index = ids.size();
+                indices.put(id, index);
+                ids.add(id);
+                neighbours.add(new HashSet<>());
+            }
+            return index;
+        }
+
+        /** Indices of the neighbours of each node, ignoring direction and loops. */
+        int[][] adjacency() {
+            return neighbours.stream().map(set -> set.stream().mapToInt(Integer::intValue).sorted().toArray()).toArray(int[][]::new);
+        }
+    }
+
+    //==============================================================================================
+
+    /** Positions in edge lengths for the nodes given by their neighbours. */
+    static double[][] layout(int[][] adjacency, int pivots) {
+        var n = adjacency.length;
+        if (n == 0)
+            return new double[0][];
+        var k = Math.min(pivots, n);
+        var chosen = new Random(SEED).ints(0, n).distinct().limit(k).toArray();
+
+        // squared distances, column per pivot
+        var distances = new double[k][];
+        IntStream.range(0, k).parallel().forEach(p -> distances[p] = squared(bfs(adjacency, chosen[p])));
+
+        // double centering
+        var rowMean = new double[n];
+        var colMean = new double[k];
+        for (var p = 0; p < k; p++) {
+            var column = distances[p];
+            for (var i = 0; i < n; i++) {
+                rowMean[i] += column[i] / k;
+                colMean[p] += column[i] / n;
+            }
+        }
+        var mean = Arrays.stream(colMean).sum() / k;
+        IntStream.range(0, k).parallel().forEach(p -> {
+            var column = distances[p];
+            for (var i = 0; i < n; i++) {
+                column[i] = -0.5 * (column[i] - rowMean[i] - colMean[p] + mean);
+            }
+        });
+
+        // k x k matrix C^T C, its main eigenvectors give the axes
+        var product = new double[k][k];
+        IntStream.range(0, k).parallel().forEach(p -> {
+            for (var q = 0; q < k; q++) {
+                product[p][q] = dot(distances[p], distances[q]);
+            }
+        });
+        var first = eigenvector(product, null);
+        var second = eigenvector(product, first);
+
+        var positions = new double[n][2];
+        IntStream.range(0, n).parallel().forEach(i -> {
+            for (var p = 0; p < k; p++) {
+                positions[i][0] += distances[p][i] * first[p];
+                positions[i][1] += distances[p][i] * second[p];
+            }
+        });
+
+        // scale to unit mean edge length
+        var length = IntStream.range(0, n).parallel()
+            .mapToDouble(i -> Arrays.stream(adjacency[i])
+                .mapToDouble(j -> Math.hypot(positions[i][0] - positions[j][0], positions[i][1] - positions[j][1]))
+                .sum())
+            .sum();
+        var edges = Arrays.stream(adjacency).mapToInt(a -> a.length).sum();
+        if (edges > 0 && length > 0) {
+            var factor = edges / length;
+            for (var position : positions) {
+                position[0] *= factor;
+                position[1] *= factor;
+            }
+        }
+        return positions;
+    }
+
+    /** Hop distances from given node, unreachable nodes are one hop beyond the farthest. */
+    private static int[] bfs(int[][] adjacency, int start) {
+        var distance = new int[adjacency.length];
+        Arrays.fill(distance, -1);
+        var queue = new int[adjacency.length];
+        var head = 0;
+        var tail = 0;
+        distance[start] = 0;
+        queue[tail++] = start;
+        while (head < tail) {
+            var node = queue[head++];
+            for (var neighbour : adjacency[node]) {
+                if (distance[neighbour] == -1) {
+                    distance[neighbour] = distance[node] + 1;
+                    queue[tail++] = neighbour;
+                }
+            }
+        }
+        var unreachable = distance[queue[tail-1]] + 1;
+        for (var i = 0; i < distance.length; i++) {
+            if (distance[i] == -1) {
+                distance[i] = unreachable;
+            }
+        }
+        return distance;
+    }
+
+    private static double[] squared(int[] distance) {
+        var result = new double[distance.length];
+        for (var i = 0; i < distance.length; i++) {
+            result[i] = (double) distance[i] * distance[i];
+        }
+        return result;
+    }
+
+    private static double dot(double[] a, double[] b) {
+        var sum = 0.0;
+        for (var i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    /** Dominant unit eigenvector by power iteration, orthogonal to {@code other} if given. */
+    private static double[] eigenvector(double[][] matrix, double[] other) {
+        var k = matrix.length;
+        var vector = new Random(SEED + (other == null ? 0 : 1)).doubles(k, -1, 1).toArray();
+        var value = 0.0;
+        for (var iteration = 0; iteration < ITERATIONS; iteration++) {
+            if (other != null) {
+                var projection = dot(vector, other) / dot(other, other);
+                for (var p = 0; p < k; p++) {
+                    vector[p] -= projection * other[p];
+                }
+            }
+            var next = new double[k];
+            for (var p = 0; p < k; p++) {
+                next[p] = dot(matrix[p], vector);
+            }
+            value = Math.sqrt(dot(next, next));
+            if (value == 0)
+                return next;
+            for (var p = 0; p < k; p++) {
+                next[p] /= value;
+            }
+            vector = next;
+        }
+        return vector;
+    }
+
+    //==============================================================================================
+    
+    private Placement() {
+        throw new AssertionError("do not instanciate");
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright: Carlos F. Heuberger. All rights reserved.
+ *
+ */
+package cfh.jgraphviz;
+
+import static cfh.jgraphviz.Dot.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import cfh.jgraphviz.Capabilities.Feature;
+import cfh.jgraphviz.Dot.Engine;
+import cfh.jgraphviz.Dot.Format;
+
+/**
+ * Attributes for small preview images, decoded by {@link Images}.
+ *
+ * @author Carlos F. Heuberger, 2026-10-19
+ *
+ */
+final class Preview {
+    
+    static final Format FORMAT = Format.PNG;
+    
+    /** Resolution used to convert pixels to the inches of <code>size</code>. */
+    static final int DPI = 72;
+    
+    /** Iterations for draft layouts of force directed engines. */
+    static final int DRAFT_ITERATIONS = 50;
+
+    /** Graph attributes to restrict the output to given pixels, optionally with draft layout. */
+    static List<GraphAttr> attributes(Engine engine, Capabilities capabilities, int width, int height, boolean draft) {
+        if (width < 1 || height < 1) 
+            throw new IllegalArgumentException("invalid size: " + width + "x" + height);
+        var attributes = new ArrayList<GraphAttr>();
+        attributes.add(size((double) width / DPI, (double) height / DPI));
+        attributes.add(dpi(DPI));
+        if (draft) {
+            attributes.add(ratio(Ratio.COMPRESS));
+            attributes.addAll(draft(engine, capabilities));
+        }
+        return attributes;
+    }
+    
+    /** 
+     * Graph attributes for a cheaper layout: fewer iterations and straight edges.
+     * Neato uses stochastic gradient descent if the installed version supports it. 
+     */
+    static List<GraphAttr> draft(Engine engine, Capabilities capabilities) {
+        return switch (engine) {
+            case DOT -> List.of(splines(Splines.LINE), nslimit(1), mclimit(0.1));
+            case NEATO -> capabilities.supports(Feature.NEATO_SGD)
+                ? List.of(splines(Splines.LINE), mode("sgd"), maxiter(DRAFT_ITERATIONS))
+                : List.of(splines(Splines.LINE), maxiter(DRAFT_ITERATIONS));
+            case FDP, SFDP -> List.of(splines(Splines.LINE), maxiter(DRAFT_ITERATIONS));
+        };
+    }
+
+    //==============================================================================================
+
+    private Preview() {
+        throw new AssertionError("do not instanciate");
+    }
+}
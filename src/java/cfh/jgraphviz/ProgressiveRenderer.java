@@ -0,0 +1,118 @@
+/*
+ * Copyright: Carlos F. Heuberger. All rights reserved.
+ *
+ */
+package cfh.jgraphviz;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.*;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+
+import cfh.jgraphviz.Dot.Engine;
+import cfh.jgraphviz.Dot.Format;
+
+/**
+ * Renders a fast draft first, and the full quality output later.
+ * 
+ * Each call to {@link #render(Graph, BiConsumer) render} supersedes the previous one: 
+ * its final render is cancelled and its callback never called. Draft and final output are
+ * rendered in parallel, but the final callback is only called after the draft is available.
+ *
+ * @author Carlos F. Heuberger, 2026-10-19
+ *
+ */
+public class ProgressiveRenderer {
+
+    private final Backend backend;
+    private final Engine engine;
+    private final Format format;
+    private final ExecutorService executor;
+    
+    private long generation = 0;
+    private Future<?> pending = null;
+    
+    public ProgressiveRenderer(Engine engine, Format format) {
+        this(Dot.backend(), engine, format);
+    }
+    
+    public ProgressiveRenderer(Backend backend, Engine engine, Format format) {
+        this.backend = requireNonNull(backend, "null backend");
+        this.engine = requireNonNull(engine, "null engine");
+        this.format = requireNonNull(format, "null format");
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            var thread = new Thread(runnable, "progressive-render");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /** 
+     * Starts the final render in background and returns the draft output. 
+     * {@code finished} is called with the final output or the exception, unless superseded,
+     * but not before the draft was rendered (or failed).
+     */
+    public byte[] render(Graph graph, BiConsumer<byte[], Throwable> finished) throws IOException, InterruptedException {
+        requireNonNull(finished, "null finished");
+        // scripted once, lazily added statements can only be read once
+        var frozen = (ScriptedGraph) graph.freeze();
+        var full = frozen.bytes();
+        var draft = frozen.script(Preview.draft(engine, backend.capabilities())).getBytes(UTF_8);
+        
+        var drafted = new CountDownLatch(1);
+        synchronized (this) {
+            cancelPending();
+            long current = ++generation;
+            pending = executor.submit(() -> {
+                byte[] output = null;
+                Throwable error = null;
+                try {
+                    output = backend.dot(engine, format, full);
+                } catch (Exception ex) {
+                    error = ex;
+                }
+                try {
+                    drafted.await();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                synchronized (this) {
+                    if (current != generation)
+                        return;
+                    pending = null;
+                }
+                finished.accept(output, error);
+            });
+        }
+        try {
+            return backend.dot(engine, format, draft);
+        } finally {
+            drafted.countDown();
+        }
+    }
+    
+    /** Cancels the pending final render, if any. */
+    public synchronized void cancel() {
+        cancelPending();
+        generation += 1;
+    }
+    
+    /** Cancels pending renders and stops the background thread. */
+    public void shutdown() {
+        cancel();
+        executor.shutdown();
+    }
+    
+    private void cancelPending() {
+        assert Thread.holdsLock(this);
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright: Carlos F. Heuberger. All rights reserved.
+ *
+ */
+package cfh.jgraphviz;
+
+import static java.util.Objects.*;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import cfh.jgraphviz.Dot.Engine;
+import cfh.jgraphviz.Dot.Format;
+
+/**
+ * Schedules renders by lane and estimated cost.
+ * 
+ * Interactive renders are always started before batch ones, and some workers are reserved 
+ * for them. Heavy renders, estimated cost above {@code budget/workers}, only run while their 
+ * summed cost stays within the budget (at least one is always allowed); others are deferred. 
+ * Renders are rejected at submission when their lane is full.
+ *
+ * @author Carlos F. Heuberger, 2026-10-19
+ *
+ */
+public class RenderScheduler {
+    
+    /** Priority lane. */
+    public enum Lane {
+        INTERACTIVE, BATCH;
+    }
+    
+    /** Default maximal number of renders waiting per lane. */
+    public static final int QUEUE_CAPACITY = 1000;
+    
+    /** 
+     * Rough estimate of the cost to layout a graph, based on its statement counts.
+     * The factors reflect the relative cost of the engines for larger graphs.
+     * Lazily added statements are only counted once the graph was scripted.
+     */
+    public static long cost(Graph graph, Engine engine) {
+        var counts = ((ScriptedGraph) graph).counts();
+        long elements = counts.nodes() + counts.edges() + 4L * counts.subgraphs() + 1;
+        return elements * switch (engine) {
+            case DOT -> 4;
+            case NEATO -> 8;
+            case FDP -> 4;
+            case SFDP -> 1;
+        };
+    }
+    
+    //==============================================================================================
+    
+    private final Backend backend;
+    private final int workers;
+    private final int reserved;
+    private final long budget;
+    private final long heavy;
+    private final int capacity;
+    private final ExecutorService executor;
+    
+    private final Deque<Job> interactive = new ArrayDeque<>();
+    private final Deque<Job> batch = new ArrayDeque<>();
+    private int running = 0;
+    private int runningBatch = 0;
+    private long runningHeavy = 0;
+    private boolean shutdown = false;
+    
+    /** 
+     * @param workers maximal number of renders running at once
+     * @param budget maximal summed {@link #cost(Graph, Engine) cost} of heavy renders running at once 
+     */
+    public RenderScheduler(Backend backend, int workers, long budget) {
+        this(backend, workers, budget, QUEUE_CAPACITY);
+    }
+    
+    /** 
+     * @param workers maximal number of renders running at once
+     * @param budget maximal summed {@link #cost(Graph, Engine) cost} of heavy renders running at once 
+     * @param capacity maximal number of renders waiting per lane
+     */
+    public RenderScheduler(Backend backend, int workers, long budget, int capacity) {
+        if (workers < 1 || budget < 1 || capacity < 1)
+            throw new IllegalArgumentException("invalid limits: " + workers + ", " + budget + ", " + capacity);
+        this.backend = requireNonNull(backend, "null backend");
+        this.workers = workers;
+        // a single worker cannot be reserved, batch renders then run whenever no interactive one waits
+        this.reserved = Math.min(workers - 1, Math.max(1, workers / 4));
+        this.capacity = capacity;
+        this.budget = budget;
+        this.heavy = budget / workers;
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            var thread = new Thread(runnable, "scheduled-render");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /** Submits a render, the script is generated immediately; completes exceptionally if rejected. */
+    public CompletableFuture<byte[]> submit(Graph graph, Engine engine, Format format, Lane lane) {
+        var job = new Job(
+            ((ScriptedGraph) graph).bytes(), 
+            requireNonNull(engine, "null engine"),
+            requireNonNull(format, "null format"), 
+            requireNonNull(lane, "null lane"), 
+            cost(graph, engine));
+        synchronized (this) {
+            if (shutdown) {
+                job.result.completeExceptionally(new RejectedExecutionException("scheduler shut down"));
+                return job.result;
+            }
+            var queue = queue(lane);
+            if (queue.size() >= capacity) {
+                job.result.completeExceptionally(new RejectedExecutionException(lane + " lane full"));
+                return job.result;
+            }
+            queue.addLast(job);
+            dispatch();
+        }
+        return job.result;
+    }
+    
+    /** Number of renders waiting in given lane. */
+    public synchronized int queued(Lane lane) {
+        return queue(lane).size();
+    }
+    
+    /** Number of renders running. */
+    public synchronized int running() {
+        return running;
+    }
+    
+    /** Stops accepting renders, waiting ones complete exceptionally, running ones are completed. */
+    public void shutdown() {
+        var waiting = new ArrayList<Job>();
+        synchronized (this) {
+            shutdown = true;
+            waiting.addAll(interactive);
+            waiting.addAll(batch);
+            interactive.clear();
+            batch.clear();
+        }
+        executor.shutdown();
+        waiting.forEach(job -> job.result.completeExceptionally(new RejectedExecutionException("scheduler shut down")));
+    }
+    
+    //----------------------------------------------------------------------------------------------
+    
+    private Deque<Job> queue(Lane lane) {
+        return lane == Lane.INTERACTIVE ? interactive : batch;
+    }
+    
+    /** Starts waiting renders as long as there are free workers and budget. */
+    private void dispatch() {
+        assert Thread.holdsLock(this);
+        while (running < workers && !shutdown) {
+            var job = take(interactive);
+            if (job == null && runningBatch < workers - reserved) {
+                job = take(batch);
+            }
+            if (job == null)
+                break;
+            
+            running += 1;
+            if (job.lane == Lane.BATCH) {
+                runningBatch += 1;
+            }
+            if (job.heavy()) {
+                runningHeavy += job.cost;
+            }
+            var started = job;
+            try {
+                executor.execute(() -> run(started));
+            } catch (RejectedExecutionException ex) {
+                release(job);
+                job.result.completeExceptionally(ex);
+            }
+        }
+    }
+    
+    /** Removes first job that may be started now, skipping cancelled ones. */
+    private Job take(Deque<Job> queue) {
+        for (Iterator<Job> iterator = queue.iterator(); iterator.hasNext(); ) {
+            var job = iterator.next();
+            if (job.result.isDone()) {
+                iterator.remove();
+            } else if (!job.heavy() || runningHeavy == 0 || runningHeavy + job.cost <= budget) {
+                iterator.remove();
+                return job;
+            }
+        }
+        return null;
+    }
+    
+    private void run(Job job) {
+        try {
+            if (!job.result.isDone()) {
+                job.result.complete(backend.dot(job.engine, job.format, job.script));
+            }
+        } catch (Throwable ex) {
+            job.result.completeExceptionally(ex);
+        } finally {
+            synchronized (this) {
+                release(job);
+                dispatch();
+            }
+        }
+    }
+    
+    /** Frees the worker and budget taken by a started job. */
+    private void release(Job job) {
+        assert Thread.holdsLock(this);
+        running -= 1;
+        if (job.lane == Lane.BATCH) {
+            runningBatch -= 1;
+        }
+        if (job.heavy()) {
+            runningHeavy -= job.cost;
+        }
+    }
+    
+    //==============================================================================================
+    
+    private final class Job {
+        
+        final byte[] script;
+        final Engine engine;
+        final Format format;
+        final Lane lane;
+        final long cost;
+        final CompletableFuture<byte[]> result = new CompletableFuture<>();
+        
+        Job(byte[] script, Engine engine, Format format, Lane lane, long cost) {
+            this.script = script;
+            this.engine = engine;
+            this.format = format;
+            this.lane = lane;
+            this.cost = cost;
+        }
+        
+        boolean heavy() {
+            return cost > heavy;
+        }
+    }
+}
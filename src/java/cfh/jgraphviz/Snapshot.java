@@ -0,0 +1,522 @@
+/*
+ * Copyright: Carlos F. Heuberger. All rights reserved.
+ *
+ */
+package cfh.jgraphviz;
+
+import static cfh.jgraphviz.Dot.*;
+import static java.nio.file.StandardCopyOption.*;
+import static java.nio.file.StandardOpenOption.*;
+import static java.util.Objects.*;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import cfh.jgraphviz.Dot.Merge;
+import cfh.jgraphviz.StatementListImpl.AttrStatement;
+import cfh.jgraphviz.Graph.Counts;
+import cfh.jgraphviz.StatementListImpl.DefaultStatement;
+import cfh.jgraphviz.StatementListImpl.LazyStatement;
+import cfh.jgraphviz.StatementListImpl.Statement;
+import cfh.jgraphviz.StatementListImpl.StatementVisitor;
+
+/**
+ * Compact binary form of a graph, to save and load it without scripting and parsing DOT.
+ *
+ * A snapshot holds a pool of all strings, a pool of the distinct attribute sets, and the
+ * statements, with all references and counts as varints. Subgraphs are length prefixed,
+ * so they are only decoded when first used; mapped files are not read before that either.
+ * Lazy statements are read once and saved as ordinary nodes and edges.
+ *
+ * @author Carlos F. Heuberger, 2026-10-19
+ *
+ */
+public final class Snapshot {
+
+    public static final int VERSION = 1;
+
+    /** "JGVS" */
+    private static final int MAGIC = 0x4A475653;
+
+    private static final byte GRAPH = 0;
+    private static final byte FROZEN = 1;
+
+    private static final byte STRICT = 1;
+    private static final byte DIRECTED = 2;
+    private static final byte COMPACT = 4;
+
+    private static final byte END = 0;
+    private static final byte NODE = 1;
+    private static final byte EDGE = 2;
+    private static final byte SUBGRAPH = 3;
+    private static final byte ATTR = 4;
+    private static final byte GRAPH_DEFAULTS = 5;
+    private static final byte NODE_DEFAULTS = 6;
+    private static final byte EDGE_DEFAULTS = 7;
+
+    private static final int NONE = 0;
+
+    /** Writes the snapshot of the graph to the channel. */
+    public static void write(Graph graph, WritableByteChannel channel) throws IOException {
+        requireNonNull(channel, "null channel");
+        var buffer = encode(graph);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /** 
+     * Writes the snapshot of the graph to the file, replacing it. 
+     * The snapshot is written to a temporary file moved into place, so a snapshot 
+     * still mapped from the replaced file is not changed.
+     */
+    public static void write(Graph graph, Path path) throws IOException {
+        var absolute = path.toAbsolutePath();
+        var temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (var channel = FileChannel.open(temp, WRITE)) {
+                write(graph, channel);
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, absolute, REPLACE_EXISTING, ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, absolute, REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException | Error ex) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ex2) {
+                ex.addSuppressed(ex2);
+            }
+            throw ex;
+        }
+    }
+
+    /** Snapshot of the graph, ready to be read. */
+    public static ByteBuffer encode(Graph graph) {
+        return new Encoder().graph((ScriptedGraph) requireNonNull(graph, "null graph"));
+    }
+
+    /** Reads a snapshot until the end of the channel. */
+    public static Graph read(ReadableByteChannel channel) throws IOException {
+        requireNonNull(channel, "null channel");
+        var buffer = ByteBuffer.allocate(64 * 1024);
+        while (channel.read(buffer) != -1) {
+            if (!buffer.hasRemaining()) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer.flip());
+            }
+        }
+        return decode(buffer.flip());
+    }
+
+    /** Reads a snapshot from a memory-mapped file. */
+    public static Graph read(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, READ)) {
+            return decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /** 
+     * Reads a snapshot from the buffer, which must not be changed while subgraphs are not yet decoded.
+     * Subgraphs decoded later throw an {@code IllegalArgumentException} if corrupt.
+     */
+    public static Graph decode(ByteBuffer buffer) throws IOException {
+        try {
+            return new Decoder(buffer.slice()).graph();
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException ex) {
+            throw new IOException("invalid snapshot", ex);
+        }
+    }
+
+    //==============================================================================================
+
+    private static final class Encoder {
+
+        private final Map<String, Integer> strings = new HashMap<>();
+        private final List<String> stringList = new ArrayList<>();
+        private final Map<List<List<String>>, Integer> sets = new HashMap<>();
+        private final List<List<Attribute>> setList = new ArrayList<>();
+        private int empty = -1;
+
+        ByteBuffer graph(ScriptedGraph graph) {
+            var body = new Output();
+            if (graph instanceof GraphImpl impl) {
+                body.put(GRAPH);
+                body.put((byte) ((impl.isStrict() ? STRICT : 0) | (impl.isDirected() ? DIRECTED : 0) | (impl.isCompact() ? COMPACT : 0)));
+                body.varint(impl.merge().ordinal());
+                body.varint(optional(impl.id()));
+                statements(body, impl);
+            } else {
+                body.put(FROZEN);
+                body.varint(string(graph.script()));
+                counts(body, graph.counts());
+            }
+
+            var out = new Output();
+            out.putInt(MAGIC);
+            out.varint(VERSION);
+            out.varint(stringList.size());
+            for (var string : stringList) {
+                var bytes = string.getBytes(StandardCharsets.UTF_8);
+                out.varint(bytes.length);
+                out.put(bytes, 0, bytes.length);
+            }
+            out.varint(setList.size());
+            for (var set : setList) {
+                out.varint(set.size());
+                for (var attribute : set) {
+                    out.varint(string(attribute.name));
+                    out.varint(string(attribute.value));
+                }
+            }
+            out.put(body.bytes, 0, body.size);
+            return ByteBuffer.wrap(out.bytes, 0, out.size);
+        }
+
+        private void statements(Output out, StatementListImpl<?> list) {
+            list.accept(new StatementVisitor() {
+                @Override
+                public void node(NodeImpl node) {
+                    Encoder.this.node(out, node);
+                }
+                @Override
+                public void edge(EdgeImpl edge) {
+                    Encoder.this.edge(out, edge);
+                }
+                @Override
+                public void subgraph(ScriptedSubgraph subgraph) {
+                    out.put(SUBGRAPH);
+                    Encoder.this.subgraph(out, subgraph);
+                }
+                @Override
+                public void other(Statement statement) {
+                    Encoder.this.other(out, statement);
+                }
+            });
+            out.put(END);
+        }
+
+        private void node(Output out, NodeImpl node) {
+            out.put(NODE);
+            out.varint(string(node.id));
+            out.varint(set(node.attributes()));
+        }
+
+        private void edge(Output out, EdgeImpl edge) {
+            out.put(EDGE);
+            endpoint(out, edge.source);
+            endpoint(out, edge.target);
+            out.varint(set(edge.attributes()));
+        }
+
+        /** Node ID as even, subgraph block as odd number. */
+        private void endpoint(Output out, SourceTarget endpoint) {
+            if (endpoint instanceof NodeImpl node) {
+                out.varint(string(node.id) << 1);
+            } else {
+                out.varint(1);
+                subgraph(out, (ScriptedSubgraph) endpoint);
+            }
+        }
+
+        /** Length prefixed block, so it can be skipped. */
+        private void subgraph(Output out, ScriptedSubgraph subgraph) {
+            var block = new Output();
+            if (subgraph instanceof LazySubgraph lazy) {
+                subgraph = lazy.loaded();
+            }
+            if (subgraph instanceof SubgraphImpl impl) {
+                block.put(GRAPH);
+                block.varint(optional(impl.id()));
+                statements(block, impl);
+            } else {
+                var frozen = (FrozenSubgraph) subgraph;
+                block.put(FROZEN);
+                block.varint(string(frozen.directed()));
+                block.varint(string(frozen.undirected()));
+                counts(block, frozen.counts());
+            }
+            out.varint(block.size);
+            out.put(block.bytes, 0, block.size);
+        }
+
+        private void other(Output out, Statement statement) {
+            if (statement instanceof AttrStatement s) {
+                out.put(ATTR);
+                out.varint(string(s.attr.name));
+                out.varint(string(s.attr.value));
+            } else if (statement instanceof DefaultStatement s) {
+                out.put(switch (s.type) {
+                    case "graph" -> GRAPH_DEFAULTS;
+                    case "node" -> NODE_DEFAULTS;
+                    case "edge" -> EDGE_DEFAULTS;
+                    default -> throw new IllegalArgumentException("unknown default type: " + s.type);
+                });
+                out.varint(set(s.attributes()));
+            } else if (statement instanceof LazyStatement s) {
+                for (var iterator = s.elements.get(); iterator.hasNext(); ) {
+                    var element = iterator.next();
+                    if (element instanceof NodeImpl node) {
+                        node(out, node);
+                    } else if (element instanceof EdgeImpl edge) {
+                        edge(out, edge);
+                    } else {
+                        throw new IllegalArgumentException("unexpected element: " + element);
+                    }
+                }
+            } else {
+                throw new IllegalArgumentException("unexpected statement: " + statement);
+            }
+        }
+
+        private void counts(Output out, Counts counts) {
+            out.varint(counts.nodes());
+            out.varint(counts.edges());
+            out.varint(counts.subgraphs());
+        }
+
+        private int string(String string) {
+            return strings.computeIfAbsent(string, s -> {
+                stringList.add(s);
+                return stringList.size() - 1;
+            });
+        }
+
+        /** Reference to a string, {@link #NONE} for {@code null}. */
+        private int optional(String string) {
+            return string == null ? NONE : string(string) + 1;
+        }
+
+        /** Interned attribute set, attributes are equal if name and value are. */
+        private int set(List<Attribute> attributes) {
+            if (attributes.isEmpty() && empty != -1)
+                return empty;
+            var key = attributes.stream().map(a -> List.of(a.name, a.value)).toList();
+            var index = sets.get(key);
+            if (index == null) {
+                index = setList.size();
+                setList.add(attributes);
+                attributes.forEach(a -> { string(a.name); string(a.value); });  // pool written before the sets
+                if (attributes.isEmpty()) {
+                    empty = index;
+                }
+                sets.put(key, index);
+            }
+            return index;
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+
+    /** Growable byte array. */
+    private static final class Output {
+        byte[] bytes = new byte[256];
+        int size = 0;
+
+        void put(byte b) {
+            ensure(1);
+            bytes[size++] = b;
+        }
+
+        void put(byte[] source, int offset, int length) {
+            ensure(length);
+            System.arraycopy(source, offset, bytes, size, length);
+            size += length;
+        }
+
+        void putInt(int value) {
+            ensure(4);
+            for (var shift = 24; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        /** Unsigned LEB128. */
+        void varint(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        private void ensure(int length) {
+            if (size + length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + length));
+            }
+        }
+    }
+
+    //==============================================================================================
+
+    private static final class Decoder {
+
+        private final ByteBuffer buffer;
+        private final String[] strings;
+        private final GNECAttribute[][] sets;
+        /** Endpoint nodes, by string reference. */
+        private final NodeImpl[] endpoints;
+
+        Decoder(ByteBuffer buffer) throws IOException {
+            this.buffer = buffer;
+            if (buffer.remaining() < 4 || buffer.getInt() != MAGIC)
+                throw new IOException("not a graph snapshot");
+            var version = varint(buffer);
+            if (version != VERSION)
+                throw new IOException("unsupported snapshot version: " + version);
+
+            strings = new String[length(buffer, 1)];
+            for (var i = 0; i < strings.length; i++) {
+                var length = length(buffer, 1);
+                strings[i] = StandardCharsets.UTF_8.decode(buffer.slice(buffer.position(), length)).toString();
+                buffer.position(buffer.position() + length);
+            }
+            var prefixes = new String[strings.length];
+            sets = new GNECAttribute[length(buffer, 1)][];
+            for (var i = 0; i < sets.length; i++) {
+                var set = new GNECAttribute[length(buffer, 2)];
+                for (var j = 0; j < set.length; j++) {
+                    var name = varint(buffer);
+                    if (prefixes[name] == null) {
+                        prefixes[name] = quote(strings[name]) + "=";
+                    }
+                    set[j] = new GNECAttribute(strings[name], strings[varint(buffer)], prefixes[name]);
+                }
+                sets[i] = set;
+            }
+            endpoints = new NodeImpl[strings.length];
+        }
+
+        Graph graph() throws IOException {
+            var kind = buffer.get();
+            if (kind == FROZEN)
+                return new FrozenGraph(strings[varint(buffer)], counts(buffer));
+            if (kind != GRAPH)
+                throw new IOException("unknown graph kind: " + kind);
+
+            var flags = buffer.get();
+            var merge = Merge.values()[varint(buffer)];
+            var id = optional(varint(buffer));
+            var graph = id == null ? new GraphImpl() : new GraphImpl(id);
+            graph.strict((flags & STRICT) != 0).directed((flags & DIRECTED) != 0).compact((flags & COMPACT) != 0).mergeEdges(merge);
+            statements(buffer, graph);
+            return graph;
+        }
+
+        private void statements(ByteBuffer in, StatementListImpl<?> list) {
+            for (byte tag; (tag = in.get()) != END; ) {
+                switch (tag) {
+                    case NODE -> {
+                        var node = new NodeImpl(strings[varint(in)]);
+                        var set = sets[varint(in)];
+                        if (set.length > 0) {
+                            node.with(set);
+                        }
+                        list.add(node);
+                    }
+                    case EDGE -> {
+                        var source = endpoint(in);
+                        var target = endpoint(in);
+                        var edge = new EdgeImpl((Source) source, (Target) target);
+                        var set = sets[varint(in)];
+                        if (set.length > 0) {
+                            edge.with(set);
+                        }
+                        list.add(edge);
+                    }
+                    case SUBGRAPH -> list.add(subgraph(in));
+                    case ATTR -> {
+                        var name = strings[varint(in)];
+                        list.with(new GNECAttribute(name, strings[varint(in)], quote(name) + "="));
+                    }
+                    case GRAPH_DEFAULTS -> list.graphdefs(sets[varint(in)]);
+                    case NODE_DEFAULTS -> list.nodedefs(sets[varint(in)]);
+                    case EDGE_DEFAULTS -> list.edgedefs(sets[varint(in)]);
+                    default -> throw new IllegalArgumentException("unknown statement: " + tag);
+                }
+            }
+        }
+
+        private SourceTarget endpoint(ByteBuffer in) {
+            var reference = varint(in);
+            if ((reference & 1) != 0)
+                return (SourceTarget) subgraph(in);
+            reference >>>= 1;
+            synchronized (endpoints) {
+                if (endpoints[reference] == null) {
+                    endpoints[reference] = new NodeImpl(strings[reference]);
+                }
+                return endpoints[reference];
+            }
+        }
+
+        /** Frozen subgraphs are decoded at once, others when first used. */
+        private Subgraph subgraph(ByteBuffer in) {
+            var length = length(in, 1);
+            var block = in.slice(in.position(), length);
+            in.position(in.position() + length);
+            var kind = block.get();
+            if (kind == FROZEN)
+                return new FrozenSubgraph(strings[varint(block)], strings[varint(block)], counts(block));
+            if (kind != GRAPH)
+                throw new IllegalArgumentException("unknown subgraph kind: " + kind);
+            return new LazySubgraph(() -> {
+                var id = optional(varint(block));
+                var subgraph = id == null ? new SubgraphImpl() : new SubgraphImpl(id);
+                statements(block, subgraph);
+                return subgraph;
+            });
+        }
+
+        private String optional(int reference) {
+            return reference == NONE ? null : strings[reference - 1];
+        }
+
+        private static Counts counts(ByteBuffer in) {
+            return new Counts(varint(in), varint(in), varint(in));
+        }
+
+        /** 
+         * Number of entries, each at least {@code size} bytes long, checked against the 
+         * remaining buffer, so corrupt data does not allocate huge arrays. 
+         */
+        private static int length(ByteBuffer in, int size) {
+            var length = varint(in);
+            if (length < 0 || (long) length * size > in.remaining())
+                throw new IllegalArgumentException("invalid length: " + Integer.toUnsignedString(length));
+            return length;
+        }
+
+        private static int varint(ByteBuffer in) {
+            var value = 0;
+            for (var shift = 0; shift < 35; shift += 7) {
+                var b = in.get();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0)
+                    return value;
+            }
+            throw new IllegalArgumentException("invalid varint");
+        }
+    }
+
+    //==============================================================================================
+
+    private Snapshot() {
+        throw new AssertionError("do not instanciate");
+    }
+}
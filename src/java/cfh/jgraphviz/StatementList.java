@@ -4,13 +4,20 @@
  */
 package cfh.jgraphviz;
 
+import static cfh.jgraphviz.Dot.*;
 import static java.util.Objects.*;
-import static java.util.stream.Collectors.*;
+import static java.util.stream.Collectors.joining;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import cfh.jgraphviz.Graph.Counts;
 
 /**
  * @author Carlos F. Heuberger, 2023-03-03
@@ -25,12 +32,24 @@ public interface StatementList<T extends StatementList<T>> {
     public T add(Node node);
     public T add(Edge edge);
     public T add(Subgraph subgraph);
+    
+    /** Adds nodes read while scripting, without keeping them; the stream can only be scripted once. */
+    public default T addNodes(Stream<? extends Node> nodes) { return addNodes(nodes::iterator); }
+    /** Adds nodes read each time while scripting, without keeping them. */
+    public T addNodes(Supplier<? extends Iterator<? extends Node>> nodes);
+    
+    /** Adds edges read while scripting, without keeping them; the stream can only be scripted once. */
+    public default T addEdges(Stream<? extends Edge> edges) { return addEdges(edges::iterator); }
+    /** Adds edges read each time while scripting, without keeping them. */
+    public T addEdges(Supplier<? extends Iterator<? extends Edge>> edges);
 }
 
 @SuppressWarnings("unchecked")
 class StatementListImpl<T extends StatementList<T>> implements StatementList<T> {
 
     private final List<Statement> statements = new ArrayList<>();
+    private NodeIndexImpl index = null;
+    
     @Override
     public T graphdefs(GraphAttr... defaults) {
         if (defaults.length > 0) {
@@ -57,13 +76,25 @@ class StatementListImpl<T extends StatementList<T>> implements StatementList<T>
 
     @Override
     public T add(Node node) {
-        statements.add(new NodeStatement(node));
+        var statement = new NodeStatement(node);
+        if (index == null) {
+            statements.add(statement);
+        } else {
+            var indexed = index.addNode(statement.node);
+            if (indexed != null) {
+                statements.add(new NodeStatement(indexed));
+            }
+        }
         return (T) this;
     }
 
     @Override
     public T add(Edge edge) {
-        statements.add(new EdgeStatement(edge));
+        var statement = new EdgeStatement(edge);
+        statements.add(statement);
+        if (index != null) {
+            index.addEdge(statement.edge);
+        }
         return (T) this;
     }
 
@@ -73,25 +104,214 @@ class StatementListImpl<T extends StatementList<T>> implements StatementList<T>
         return (T) this;
     }
 
+    @Override
+    public T addNodes(Supplier<? extends Iterator<? extends Node>> nodes) {
+        statements.add(new LazyStatement(nodes));
+        return (T) this;
+    }
+    
+    @Override
+    public T addEdges(Supplier<? extends Iterator<? extends Edge>> edges) {
+        statements.add(new LazyStatement(edges));
+        return (T) this;
+    }
+
+    /** 
+     * Index of the nodes and edges of this list, created on first call, merging already added nodes. 
+     * The nodes are replaced by copies owned by the index.
+     */
+    public NodeIndex index() {
+        if (index == null) {
+            var created = new NodeIndexImpl(this);
+            for (var iterator = statements.listIterator(); iterator.hasNext(); ) {
+                var statement = iterator.next();
+                if (statement instanceof NodeStatement s) {
+                    var indexed = created.addNode(s.node);
+                    if (indexed == null) {
+                        iterator.remove();
+                    } else {
+                        iterator.set(new NodeStatement(indexed));
+                    }
+                } else if (statement instanceof EdgeStatement s) {
+                    created.addEdge(s.edge);
+                }
+            }
+            index = created;
+        }
+        return index;
+    }
+
     protected void with(Attr... attributes) {
         Arrays.stream(attributes).map(AttrStatement::new).forEach(statements::add);
     }
     
-    protected String scriptStatements(GraphImpl graph) {
-//        UnaryOperator<String> appendSemiColon = s -> s + ";";
-        return statements
-            .stream()
-            .map(s -> s.script(graph))
-            .filter(Objects::nonNull)
-//            .map(appendSemiColon)
-            .collect(joining("\n"));
+    /** Passes the statements of this list, not the ones of subgraphs, to the visitor. */
+    void accept(StatementVisitor visitor) {
+        for (var statement : statements) {
+            if (statement instanceof NodeStatement s) {
+                visitor.node(s.node);
+            } else if (statement instanceof EdgeStatement s) {
+                visitor.edge(s.edge);
+            } else if (statement instanceof SubgraphStatement s) {
+                visitor.subgraph(s.subgraph instanceof LazySubgraph lazy ? lazy.loaded() : s.subgraph);
+            } else {
+                visitor.other(statement);
+            }
+        }
+    }
+    
+    /** Adds a statement taken from another list. */
+    void addStatement(Statement statement) {
+        statements.add(requireNonNull(statement, "null statement"));
+    }
+    
+    /** Registers the edges of this list, not the ones of subgraphs, in scripting order. */
+    void collectEdges(EdgeReduction reduction) {
+        for (var statement : statements) {
+            if (statement instanceof EdgeStatement s) {
+                reduction.collect(s.edge);
+            }
+        }
+    }
+    
+    /** 
+     * Counts the statements, including the ones from subgraphs. 
+     * Lazy statements are counted as read the last time they were written.
+     */
+    public Counts counts() {
+        int nodes = 0;
+        int edges = 0;
+        int subgraphs = 0;
+        for (var statement : statements) {
+            if (statement instanceof NodeStatement) {
+                nodes += 1;
+            } else if (statement instanceof EdgeStatement) {
+                edges += 1;
+            } else if (statement instanceof SubgraphStatement s) {
+                var counts = s.subgraph.counts();
+                nodes += counts.nodes();
+                edges += counts.edges();
+                subgraphs += counts.subgraphs() + 1;
+            } else if (statement instanceof LazyStatement s) {
+                nodes += s.nodes;
+                edges += s.edges;
+            }
+        }
+        return new Counts(nodes, edges, subgraphs);
+    }
+    
+    /** 
+     * Writes the statements, duplicated edges of this list are reduced as given by the graph.
+     * Compact graphs have consecutive edges between nodes written as chains and fan-outs.
+     */
+    protected void writeStatements(Appendable out, GraphImpl graph, String indent) throws IOException {
+        var reduction = EdgeReduction.of(graph, this);
+        if (!graph.isCompact()) {
+            for (var statement : statements) {
+                statement.write(out, graph, reduction, indent);
+            }
+            return;
+        }
+        var run = new ArrayList<EdgeImpl>();
+        for (var statement : statements) {
+            if (statement instanceof EdgeStatement s && s.edge.source instanceof NodeImpl && s.edge.target instanceof NodeImpl) {
+                run.add(s.edge);
+            } else {
+                writeEdges(out, graph, reduction, run);
+                run.clear();
+                statement.write(out, graph, reduction, indent);
+            }
+        }
+        writeEdges(out, graph, reduction, run);
+    }
+    
+    /** 
+     * Writes edges between nodes keeping their order, consecutive edges with the same attributes 
+     * are joined into paths like <code>a -> b -> c</code> or into targets like <code>a -> {b c}</code>. 
+     */
+    private static void writeEdges(Appendable out, GraphImpl graph, EdgeReduction reduction, List<EdgeImpl> edges) throws IOException {
+        if (edges.isEmpty())
+            return;
+        var operator = EdgeImpl.operator(graph);
+        var line = new ArrayList<String>();
+        var fan = false;
+        String attributes = null;
+        for (var edge : edges) {
+            var extra = reduction == null ? List.<Attribute>of() : reduction.extra(edge);
+            if (extra == null)
+                continue;
+            var key = edge.script(extra, true);
+            var source = ((NodeImpl) edge.source).id;
+            var target = ((NodeImpl) edge.target).id;
+            if (key.equals(attributes)) {
+                if (!fan && line.get(line.size()-1).equals(source)) {
+                    line.add(target);
+                    continue;
+                }
+                // a node appears once in {..}, parallel edges start a new line
+                if ((fan || line.size() == 2) && line.get(0).equals(source) && !line.subList(1, line.size()).contains(target)) {
+                    line.add(target);
+                    fan = true;
+                    continue;
+                }
+            }
+            writeLine(out, operator, line, fan, attributes);
+            line.clear();
+            line.add(source);
+            line.add(target);
+            fan = false;
+            attributes = key;
+        }
+        writeLine(out, operator, line, fan, attributes);
+    }
+
+    /** Writes a path, or the source and its targets if {@code fan}. */
+    private static void writeLine(Appendable out, String operator, List<String> line, boolean fan, String attributes) throws IOException {
+        if (line.isEmpty())
+            return;
+        out.append(compact(line.get(0))).append(operator);
+        if (fan) {
+            out.append('{').append(line.stream().skip(1).map(Dot::compact).collect(joining(" "))).append('}');
+        } else {
+            out.append(line.stream().skip(1).map(Dot::compact).collect(joining(operator)));
+        }
+        out.append(attributes).append('\n');
+    }
+    
+    /** Writes each line of the text indented. */
+    static void writeLines(Appendable out, String text, String indent) throws IOException {
+        if (text.indexOf('\n') == -1) {
+            out.append(indent).append(text).append('\n');
+        } else {
+            for (var line : (Iterable<String>) text.lines()::iterator) {
+                out.append(indent).append(line).append('\n');
+            }
+        }
     }
 
     //----------------------------------------------------------------------------------------------
     
+    /** Visitor for the statements of a list, used to transform graphs. */
+    interface StatementVisitor {
+        public void node(NodeImpl node);
+        public void edge(EdgeImpl edge);
+        public void subgraph(ScriptedSubgraph subgraph);
+        /** Attribute, default and lazy statements. */
+        public void other(Statement statement);
+    }
+    
     sealed static interface Statement {
         
-        public String script(GraphImpl graph);
+        /** Script of this statement, {@code null} if nothing is to be scripted. */
+        public String script(GraphImpl graph, EdgeReduction reduction);
+        
+        /** Writes the script of this statement, each line indented and terminated. */
+        public default void write(Appendable out, GraphImpl graph, EdgeReduction reduction, String indent) throws IOException {
+            var script = script(graph, reduction);
+            if (script != null) {
+                writeLines(out, script, indent);
+            }
+        }
     }
     
     private static final class NodeStatement implements Statement {
@@ -103,7 +323,7 @@ class StatementListImpl<T extends StatementList<T>> implements StatementList<T>
         }
 
         @Override
-        public String script(GraphImpl graph) {
+        public String script(GraphImpl graph, EdgeReduction reduction) {
             return node.script(graph);
         }
     }
@@ -117,25 +337,75 @@ class StatementListImpl<T extends StatementList<T>> implements StatementList<T>
         }
 
         @Override
-        public String script(GraphImpl graph) {
-            return edge.script(graph);
+        public String script(GraphImpl graph, EdgeReduction reduction) {
+            return reduction == null ? edge.script(graph) : reduction.script(edge);
         }
     }
     
     private static final class SubgraphStatement implements Statement {
-        final SubgraphImpl subgraph;
+        final ScriptedSubgraph subgraph;
         
         SubgraphStatement(Subgraph subgraph) {
-            this.subgraph = (SubgraphImpl) requireNonNull(subgraph, "null subgraph");
+            this.subgraph = (ScriptedSubgraph) requireNonNull(subgraph, "null subgraph");
         }
 
+        /** Subgraphs reduce their own edges. */
         @Override
-        public String script(GraphImpl graph) {
+        public String script(GraphImpl graph, EdgeReduction reduction) {
             return subgraph.script(graph);
         }
+        
+        @Override
+        public void write(Appendable out, GraphImpl graph, EdgeReduction reduction, String indent) throws IOException {
+            subgraph.write(out, graph, indent);
+        }
+    }
+    
+    /** Nodes or edges only read while writing, not reduced nor indexed; counted once written. */
+    static final class LazyStatement implements Statement {
+        
+        final Supplier<? extends Iterator<?>> elements;
+        /** Elements read the last time this statement was written. */
+        int nodes = 0;
+        int edges = 0;
+        
+        LazyStatement(Supplier<? extends Iterator<?>> elements) {
+            this.elements = requireNonNull(elements, "null elements");
+        }
+        
+        @Override
+        public String script(GraphImpl graph, EdgeReduction reduction) {
+            var builder = new StringBuilder();
+            try {
+                write(builder, graph, reduction, "");
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);  // not thrown by StringBuilder
+            }
+            return builder.isEmpty() ? null : builder.toString().stripTrailing();
+        }
+        
+        @Override
+        public void write(Appendable out, GraphImpl graph, EdgeReduction reduction, String indent) throws IOException {
+            int nodeCount = 0;
+            int edgeCount = 0;
+            for (var iterator = elements.get(); iterator.hasNext(); ) {
+                var element = iterator.next();
+                if (element instanceof NodeImpl node) {
+                    writeLines(out, node.script(graph), indent);
+                    nodeCount += 1;
+                } else if (element instanceof EdgeImpl edge) {
+                    writeLines(out, edge.script(graph), indent);
+                    edgeCount += 1;
+                } else {
+                    throw new IllegalArgumentException("unexpected element: " + element);
+                }
+            }
+            nodes = nodeCount;
+            edges = edgeCount;
+        }
     }
     
-    private static final class AttrStatement implements Statement {
+    static final class AttrStatement implements Statement {
 
         final Attribute attr; 
         
@@ -144,12 +414,12 @@ class StatementListImpl<T extends StatementList<T>> implements StatementList<T>
         }
 
         @Override
-        public String script(GraphImpl graph) {
-            return attr.script();
+        public String script(GraphImpl graph, EdgeReduction reduction) {
+            return attr.script(graph.isCompact());
         }
     }
 
-    private sealed static class DefaultStatement extends AttributeHolder implements Statement {
+    sealed static class DefaultStatement extends AttributeHolder implements Statement {
 
         final String type;
         
@@ -162,8 +432,8 @@ class StatementListImpl<T extends StatementList<T>> implements StatementList<T>
         }
 
         @Override
-        public String script(GraphImpl graph) {
-            return type + super.script();
+        public String script(GraphImpl graph, EdgeReduction reduction) {
+            return type + (graph.isCompact() ? super.script(List.of(), true) : super.script());
         }
     }
     
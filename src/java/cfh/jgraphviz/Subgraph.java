@@ -4,11 +4,18 @@
  */
 package cfh.jgraphviz;
 
-import static cfh.jgraphviz.Dot.INDENT;
+import static cfh.jgraphviz.Dot.INDENTATION;
+import static cfh.jgraphviz.Dot.compact;
 import static cfh.jgraphviz.Dot.quote;
+import static cfh.jgraphviz.StatementListImpl.writeLines;
 import static java.util.Objects.requireNonNull;
 
-import java.util.Formatter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Supplier;
+
+import cfh.jgraphviz.Graph.Counts;
 
 /**
  * @author Carlos F. Heuberger, 2023-03-03
@@ -17,13 +24,33 @@ import java.util.Formatter;
 public interface Subgraph extends StatementList<Subgraph>, Source, Target {
 
     public Graph with(ClusterAttr... attributes);
+    
+    /** 
+     * Immutable snapshot of this subgraph, with its script created only once.
+     * Can be added to several graphs, its edges are not reduced in strict or merging graphs.
+     */
+    public Subgraph freeze();
+}
+
+/**
+ * Subgraph as used in statements.
+ * 
+ * @author Carlos F. Heuberger, 2026-10-19
+ *
+ */
+sealed interface ScriptedSubgraph extends Subgraph, SourceTarget permits SubgraphImpl, FrozenSubgraph, LazySubgraph {
+    
+    /** Writes the script, each line indented. */
+    public void write(Appendable out, GraphImpl graph, String indent) throws IOException;
+    
+    public Counts counts();
 }
 
 /**
  * @author Carlos F. Heuberger, 2023-03-06
  *
  */
-class SubgraphImpl extends StatementListImpl<Subgraph> implements Subgraph, SourceTarget {
+final class SubgraphImpl extends StatementListImpl<Subgraph> implements ScriptedSubgraph {
 
     private final String id;
 
@@ -35,6 +62,11 @@ class SubgraphImpl extends StatementListImpl<Subgraph> implements Subgraph, Sour
         this.id = requireNonNull(id, "null id");
     }
 
+    /** ID of this subgraph, {@code null} if anonymous. */
+    String id() {
+        return id;
+    }
+
     @Override
     public Edge to(Target target) {
         return new EdgeImpl(this, target);
@@ -51,21 +83,262 @@ class SubgraphImpl extends StatementListImpl<Subgraph> implements Subgraph, Sour
         return null;
     }
     
+    @Override
+    public Subgraph freeze() {
+        return new FrozenSubgraph(this);
+    }
+    
     @Override
     public String script(GraphImpl graph) {
-        var formatter = new Formatter();
-        try (formatter) {
+        var builder = new StringBuilder();
+        try {
+            write(builder, graph, "");
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);  // not thrown by StringBuilder
+        }
+        return builder.toString().stripTrailing();
+    }
+    
+    @Override
+    public void write(Appendable out, GraphImpl graph, String indent) throws IOException {
+        out.append(indent);
+        if (graph.isCompact()) {
             if (id != null) {
-                formatter.format("subgraph %s ", quote(id));
+                out.append("subgraph ").append(compact(id));
             }
-            formatter.format("""
-                {
-                %s
-                }
-                """, 
-                scriptStatements(graph).indent(INDENT).stripTrailing());  // remove trailing linefeed
+            out.append("{\n");
+            writeStatements(out, graph, indent);
+        } else {
+            if (id != null) {
+                out.append("subgraph ").append(quote(id)).append(' ');
+            }
+            out.append("{\n");
+            writeStatements(out, graph, indent + INDENTATION);
+        }
+        out.append(indent).append("}\n");
+    }
+}
+
+/**
+ * Immutable subgraph, holding the scripts for directed and un-directed graphs.
+ * 
+ * @author Carlos F. Heuberger, 2026-10-19
+ *
+ */
+final class FrozenSubgraph implements ScriptedSubgraph {
+    
+    private final String directed;
+    private final String undirected;
+    private final Counts counts;
+    
+    FrozenSubgraph(SubgraphImpl subgraph) {
+        this(subgraph.script((GraphImpl) new GraphImpl().directed(true)), subgraph.script(new GraphImpl()), subgraph.counts());
+    }
+    
+    FrozenSubgraph(String directed, String undirected, Counts counts) {
+        this.directed = requireNonNull(directed, "null directed");
+        this.undirected = requireNonNull(undirected, "null undirected");
+        this.counts = requireNonNull(counts, "null counts");
+    }
+    
+    String directed() {
+        return directed;
+    }
+    
+    String undirected() {
+        return undirected;
+    }
+    
+    @Override
+    public Subgraph graphdefs(GraphAttr... defaults) {
+        throw new UnsupportedOperationException("frozen subgraph");
+    }
+    
+    @Override
+    public Subgraph nodedefs(NodeAttr... defaults) {
+        throw new UnsupportedOperationException("frozen subgraph");
+    }
+    
+    @Override
+    public Subgraph edgedefs(EdgeAttr... defaults) {
+        throw new UnsupportedOperationException("frozen subgraph");
+    }
+    
+    @Override
+    public Subgraph add(Node node) {
+        throw new UnsupportedOperationException("frozen subgraph");
+    }
+    
+    @Override
+    public Subgraph add(Edge edge) {
+        throw new UnsupportedOperationException("frozen subgraph");
+    }
+    
+    @Override
+    public Subgraph add(Subgraph subgraph) {
+        throw new UnsupportedOperationException("frozen subgraph");
+    }
+    
+    @Override
+    public Subgraph addNodes(Supplier<? extends Iterator<? extends Node>> nodes) {
+        throw new UnsupportedOperationException("frozen subgraph");
+    }
+    
+    @Override
+    public Subgraph addEdges(Supplier<? extends Iterator<? extends Edge>> edges) {
+        throw new UnsupportedOperationException("frozen subgraph");
+    }
+    
+    @Override
+    public Graph with(ClusterAttr... attributes) {
+        throw new UnsupportedOperationException("frozen subgraph");
+    }
+    
+    @Override
+    public Subgraph freeze() {
+        return this;
+    }
+    
+    @Override
+    public Edge to(Target target) {
+        return new EdgeImpl(this, target);
+    }
+    
+    @Override
+    public Edge from(Source source) {
+        return new EdgeImpl(source, this);
+    }
+    
+    @Override
+    public String script(GraphImpl graph) {
+        return graph.isDirected() ? directed : undirected;
+    }
+    
+    @Override
+    public void write(Appendable out, GraphImpl graph, String indent) throws IOException {
+        writeLines(out, script(graph), indent);
+    }
+    
+    @Override
+    public Counts counts() {
+        return counts;
+    }
+}
 
-            return formatter.toString().stripTrailing();
+/**
+ * Subgraph read from a snapshot, its statements are only decoded when first used.
+ * 
+ * @author Carlos F. Heuberger, 2026-10-19
+ *
+ */
+final class LazySubgraph implements ScriptedSubgraph {
+    
+    private final Supplier<SubgraphImpl> loader;
+    private volatile SubgraphImpl loaded = null;
+    
+    LazySubgraph(Supplier<SubgraphImpl> loader) {
+        this.loader = requireNonNull(loader, "null loader");
+    }
+    
+    /** The decoded subgraph, decoding it on first call. */
+    SubgraphImpl loaded() {
+        var subgraph = loaded;
+        if (subgraph == null) {
+            synchronized (this) {
+                subgraph = loaded;
+                if (subgraph == null) {
+                    loaded = subgraph = loader.get();
+                }
+            }
         }
+        return subgraph;
+    }
+    
+    /** If the statements were already decoded. */
+    boolean isLoaded() {
+        return loaded != null;
+    }
+    
+    @Override
+    public Subgraph graphdefs(GraphAttr... defaults) {
+        loaded().graphdefs(defaults);
+        return this;
+    }
+    
+    @Override
+    public Subgraph nodedefs(NodeAttr... defaults) {
+        loaded().nodedefs(defaults);
+        return this;
+    }
+    
+    @Override
+    public Subgraph edgedefs(EdgeAttr... defaults) {
+        loaded().edgedefs(defaults);
+        return this;
+    }
+    
+    @Override
+    public Subgraph add(Node node) {
+        loaded().add(node);
+        return this;
+    }
+    
+    @Override
+    public Subgraph add(Edge edge) {
+        loaded().add(edge);
+        return this;
+    }
+    
+    @Override
+    public Subgraph add(Subgraph subgraph) {
+        loaded().add(subgraph);
+        return this;
+    }
+    
+    @Override
+    public Subgraph addNodes(Supplier<? extends Iterator<? extends Node>> nodes) {
+        loaded().addNodes(nodes);
+        return this;
+    }
+    
+    @Override
+    public Subgraph addEdges(Supplier<? extends Iterator<? extends Edge>> edges) {
+        loaded().addEdges(edges);
+        return this;
+    }
+    
+    @Override
+    public Graph with(ClusterAttr... attributes) {
+        return loaded().with(attributes);
+    }
+    
+    @Override
+    public Subgraph freeze() {
+        return loaded().freeze();
+    }
+    
+    @Override
+    public Edge to(Target target) {
+        return new EdgeImpl(this, target);
+    }
+    
+    @Override
+    public Edge from(Source source) {
+        return new EdgeImpl(source, this);
     }
-}
\ No newline at end of file
+    
+    @Override
+    public String script(GraphImpl graph) {
+        return loaded().script(graph);
+    }
+    
+    @Override
+    public void write(Appendable out, GraphImpl graph, String indent) throws IOException {
+        loaded().write(out, graph, indent);
+    }
+    
+    @Override
+    public Counts counts() {
+        return loaded().counts();
+    }
+}
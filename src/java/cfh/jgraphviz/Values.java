@@ -0,0 +1,145 @@
+/*
+ * Copyright: Carlos F. Heuberger. All rights reserved.
+ *
+ */
+package cfh.jgraphviz;
+
+import static cfh.jgraphviz.Dot.*;
+import static java.util.Objects.*;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Encoding of attribute values, avoiding {@code BigDecimal} and {@code Formatter}.
+ *
+ * @author Carlos F. Heuberger, 2026-10-19
+ *
+ */
+final class Values {
+
+    /** Maximal number of fraction digits of encoded numbers. */
+    static final int DECIMALS = 4;
+    private static final long SCALE = 10_000;
+    
+    private static final int MAX_CACHED_COLORS = 1024;
+    private static final Map<Object, String> colors = new ConcurrentHashMap<>();
+    
+    /** Encodes an arbitrary value: strings are quoted, numbers formatted. */
+    static String encode(Object value) {
+        requireNonNull(value, "null value");
+        if (value instanceof String s) {
+            return quote(s);
+        } else if (value instanceof Double || value instanceof Float) {
+            return number(((Number) value).doubleValue());
+        } else {
+            return value.toString();
+        }
+    }
+    
+    static String number(int value) {
+        return Integer.toString(value);
+    }
+    
+    static String number(double value) {
+        var builder = new StringBuilder(16);
+        appendNumber(builder, value);
+        return builder.toString();
+    }
+    
+    /** Point as <code>"x,y"</code>, optionally with trailing <code>!</code>. */
+    static String point(double x, double y, boolean exclamation) {
+        var builder = new StringBuilder(32).append('"');
+        appendNumber(builder, x);
+        builder.append(',');
+        appendNumber(builder, y);
+        if (exclamation) {
+            builder.append('!');
+        }
+        return builder.append('"').toString();
+    }
+    
+    static String bool(boolean value) {
+        return value ? "true" : "false";
+    }
+    
+    /** Quoted color name or specification, cached. */
+    static String color(String color) {
+        return cached(requireNonNull(color, "null color"), () -> quote(color));
+    }
+    
+    /** Quoted <code>"#rrggbb"</code> color, cached. */
+    static String color(int rgb) {
+        return cached(rgb & 0xFFFFFF, () -> hex(rgb, 6));
+    }
+    
+    /** Quoted <code>"#rrggbbaa"</code> color, cached. */
+    static String color(int rgb, int alpha) {
+        if (alpha < 0 || alpha > 255) 
+            throw new IllegalArgumentException("invalid alpha: " + alpha);
+        long rgba = (long) (rgb & 0xFFFFFF) << 8 | alpha;
+        return cached(rgba, () -> hex(rgba, 8));
+    }
+    
+    //----------------------------------------------------------------------------------------------
+    
+    /** Appends the number rounded to {@link #DECIMALS} fraction digits, trailing zeros removed. */
+    static void appendNumber(StringBuilder builder, double value) {
+        if (!Double.isFinite(value)) 
+            throw new IllegalArgumentException("invalid number: " + value);
+        
+        double abs = Math.abs(value);
+        if (abs >= Long.MAX_VALUE / SCALE) {
+            builder.append(new BigDecimal(value).toBigInteger());
+            return;
+        }
+        long scaled = Math.round(abs * SCALE);
+        if (scaled == 0) {
+            builder.append('0');
+            return;
+        }
+        if (value < 0) {
+            builder.append('-');
+        }
+        builder.append(scaled / SCALE);
+        long fraction = scaled % SCALE;
+        if (fraction != 0) {
+            builder.append('.');
+            for (long digit = SCALE / 10; fraction != 0; digit /= 10) {
+                builder.append((char) ('0' + fraction / digit));
+                fraction %= digit;
+            }
+        }
+    }
+    
+    private static String hex(long value, int digits) {
+        var chars = new char[digits + 3];
+        chars[0] = '"';
+        chars[1] = '#';
+        for (var i = digits; i > 0; i--) {
+            chars[i+1] = Character.forDigit((int) (value & 0xF), 16);
+            value >>>= 4;
+        }
+        chars[digits+2] = '"';
+        return new String(chars);
+    }
+    
+    private static String cached(Object key, Supplier<String> encoder) {
+        var encoded = colors.get(key);
+        if (encoded == null) {
+            encoded = encoder.get();
+            if (colors.size() < MAX_CACHED_COLORS) {
+                colors.putIfAbsent(key, encoded);
+            }
+        }
+        return encoded;
+    }
+    
+    //==============================================================================================
+    
+    private Values() {
+        throw new AssertionError("do not instanciate");
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright: Carlos F. Heuberger. All rights reserved.
+ *
+ */
+package cfh.jgraphviz.server;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+
+import cfh.jgraphviz.Backend;
+import cfh.jgraphviz.Dot.Engine;
+import cfh.jgraphviz.Dot.Format;
+
+/**
+ * Backend rendering on a {@link RenderServer}.
+ * 
+ * Selected by setting the <code>GraphBackend</code> property to this class, the server
+ * is given by the <code>GraphServer</code> property (default <code>http://localhost:8765/</code>).
+ *
+ * @author Carlos F. Heuberger, 2026-10-19
+ *
+ */
+public class RemoteBackend implements Backend {
+    
+    private static final String SERVER_PROPERTY = "GraphServer";
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+
+    private final URI server;
+    private final HttpClient client;
+    
+    public RemoteBackend() {
+        this(URI.create(System.getProperty(SERVER_PROPERTY, "http://localhost:" + RenderServer.DEFAULT_PORT + "/")));
+    }
+    
+    public RemoteBackend(URI server) {
+        this.server = requireNonNull(server, "null server");
+        this.client = HttpClient.newBuilder().connectTimeout(CONNECT_TIMEOUT).build();
+    }
+    
+    @Override
+    public void dot(Engine engine, Format format, InputStream dotInput, OutputStream output) throws IOException, InterruptedException {
+        var uri = server.resolve(RenderServer.RENDER_PATH + "?engine=" + engine.name() + "&format=" + format.name());
+        var request = HttpRequest.newBuilder(uri)
+            .POST(BodyPublishers.ofInputStream(() -> dotInput))
+            .build();
+        var response = client.send(request, BodyHandlers.ofInputStream());
+        try (var body = response.body()) {
+            if (response.statusCode() != 200) {
+                var message = new String(body.readAllBytes(), UTF_8);
+                throw new RuntimeException("dot to " + format + " conversion failed, server returned: " 
+                    + response.statusCode() + " " + message);
+            }
+            body.transferTo(output);
+        }
+    }
+    
+    /** Checks if the server is responding. */
+    @Override
+    public boolean available() {
+        var request = HttpRequest.newBuilder(server.resolve(RenderServer.HEALTH_PATH))
+            .timeout(CONNECT_TIMEOUT)
+            .GET()
+            .build();
+        try {
+            return client.send(request, BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException ex) {
+            return false;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
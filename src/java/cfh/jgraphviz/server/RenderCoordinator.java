@@ -0,0 +1,586 @@
+/*
+ * Copyright: Carlos F. Heuberger. All rights reserved.
+ *
+ */
+package cfh.jgraphviz.server;
+
+import static java.util.Objects.*;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import cfh.jgraphviz.Backend;
+import cfh.jgraphviz.Capabilities;
+import cfh.jgraphviz.Dot.Engine;
+import cfh.jgraphviz.Dot.Format;
+
+/**
+ * Backend distributing the renders over {@link RenderWorker} JVMs, connected by sockets.
+ *
+ * Each job is queued at the worker with the fewest jobs; a worker without queued jobs
+ * steals the last one queued at the busiest worker. Output is streamed to the caller
+ * as the chunks arrive, written by the calling thread, so a slow caller does not delay
+ * other jobs. Jobs of a lost worker are queued again, unless output was already streamed
+ * or they were tried {@value #MAX_ATTEMPTS} times. A job whose caller is interrupted is
+ * cancelled on the worker. Only the encoded output is sent, decoded by the caller if needed.
+ * The capabilities are the ones reported by the workers if all agree, unknown otherwise.
+ * <p>
+ * Workers must prove to know the shared secret, given by the <code>GraphSecret</code> property
+ * or the <code>GRAPH_SECRET</code> environment variable of both sides; without it, a random
+ * secret is used, known only to the local workers.
+ * <p>
+ * Selected by setting the <code>GraphBackend</code> property to this class, it then listens
+ * on the address given by the <code>GraphCoordinatorAddress</code> property (default loopback)
+ * and the port given by the <code>GraphCoordinator</code> property (default 8766), and starts
+ * the number of local workers given by the <code>GraphWorkers</code> property (default 2, 0 for
+ * workers on other hosts only).
+ *
+ * @author Carlos F. Heuberger, 2026-10-19
+ *
+ */
+public class RenderCoordinator implements Backend, Closeable {
+
+    private static final String ADDRESS_PROPERTY = "GraphCoordinatorAddress";
+    private static final String PORT_PROPERTY = "GraphCoordinator";
+    private static final String WORKERS_PROPERTY = "GraphWorkers";
+    static final String SECRET_PROPERTY = "GraphSecret";
+    static final String SECRET_ENVIRONMENT = "GRAPH_SECRET";
+
+    static final int DEFAULT_PORT = 8766;
+    static final int MAX_ATTEMPTS = 3;
+    static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+
+    // protocol
+    static final int MAGIC = 0x4A475752;  // "JGWR"
+    /** 
+     * Handshake: the worker sends magic and version, the coordinator a nonce, the worker its MAC, 
+     * renders, name and capabilities, the coordinator magic if accepted.
+     */
+    static final int VERSION = 4;
+    static final int CHUNK_SIZE = 64 * 1024;
+    static final int NONCE_SIZE = 32;
+    static final String MAC_ALGORITHM = "HmacSHA256";
+    /**
+     * Coordinator to worker: id, engine, format, script length, script.
+     */
+    static final byte JOB = 1;
+    /** Worker to coordinator: id, length, output bytes. */
+    static final byte CHUNK = 2;
+    /** Worker to coordinator: id. */
+    static final byte END = 3;
+    /** Worker to coordinator: id, message. */
+    static final byte ERROR = 4;
+    /** Coordinator to worker: id; the render is interrupted, its frames are ignored. */
+    static final byte CANCEL = 5;
+
+    //==============================================================================================
+
+    private final ServerSocket server;
+    private final byte[] secret;
+    private final SecureRandom random = new SecureRandom();
+    private final AtomicLong ids = new AtomicLong();
+    private final List<Process> processes = new CopyOnWriteArrayList<>();
+
+    // guarded by this
+    private final List<Link> links = new ArrayList<>();
+    private final Deque<Job> pending = new ArrayDeque<>();
+    private boolean closed = false;
+
+    public RenderCoordinator() throws IOException {
+        this(new InetSocketAddress(
+            address(System.getProperty(ADDRESS_PROPERTY)),
+            Integer.getInteger(PORT_PROPERTY, DEFAULT_PORT)));
+        startLocalWorkers(Integer.getInteger(WORKERS_PROPERTY, 2), Runtime.getRuntime().availableProcessors());
+    }
+
+    /** Uses the configured secret, or a random one only known to the local workers. */
+    public RenderCoordinator(InetSocketAddress address) throws IOException {
+        this(address, configuredSecret());
+    }
+
+    public RenderCoordinator(InetSocketAddress address, String secret) throws IOException {
+        if (secret == null) {
+            var bytes = new byte[NONCE_SIZE];
+            random.nextBytes(bytes);
+            secret = Base64.getEncoder().encodeToString(bytes);
+        }
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        server = new ServerSocket();
+        server.bind(requireNonNull(address, "null address"));
+        var acceptor = new Thread(this::accept, "coordinator " + address());
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    private static InetAddress address(String host) throws IOException {
+        return host == null ? InetAddress.getLoopbackAddress() : InetAddress.getByName(host);
+    }
+
+    /** Secret given by the property or environment, {@code null} if none. */
+    static String configuredSecret() {
+        var secret = System.getProperty(SECRET_PROPERTY);
+        return secret != null ? secret : System.getenv(SECRET_ENVIRONMENT);
+    }
+
+    /** Answer proving the knowledge of the secret. */
+    static byte[] mac(byte[] secret, byte[] nonce) throws IOException {
+        try {
+            var mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secret, MAC_ALGORITHM));
+            return mac.doFinal(nonce);
+        } catch (GeneralSecurityException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    public InetSocketAddress address() {
+        return (InetSocketAddress) server.getLocalSocketAddress();
+    }
+
+    /**
+     * Starts worker JVMs on this machine, with the same class path, Graphviz location and secret;
+     * stopped on close.
+     */
+    public List<Process> startLocalWorkers(int count, int renders) throws IOException {
+        var java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        var started = new ArrayList<Process>();
+        for (var i = 0; i < count; i++) {
+            var command = new ArrayList<String>();
+            command.add(java);
+            for (var property : List.of("GraphPath", "GraphServer")) {
+                var value = System.getProperty(property);
+                if (value != null) {
+                    command.add("-D" + property + "=" + value);
+                }
+            }
+            command.addAll(List.of("-cp", System.getProperty("java.class.path"), RenderWorker.class.getName(),
+                address().getHostString(), Integer.toString(address().getPort()), Integer.toString(renders)));
+            var builder = new ProcessBuilder(command).inheritIO();
+            // not on the command line, visible to other users
+            builder.environment().put(SECRET_ENVIRONMENT, new String(secret, StandardCharsets.UTF_8));
+            var process = builder.start();
+            processes.add(process);
+            started.add(process);
+        }
+        return started;
+    }
+
+    /** Number of connected workers. */
+    public synchronized int workers() {
+        return links.size();
+    }
+
+    /** Renders on a worker, the output is written as it arrives. */
+    @Override
+    public void dot(Engine engine, Format format, InputStream dotInput, OutputStream output) throws IOException, InterruptedException {
+        requireNonNull(output, "null output");
+        run(new Job(ids.incrementAndGet(), engine, format, dotInput.readAllBytes()), output);
+    }
+
+    /** Queues the job and writes its output with the calling thread until done. */
+    private void run(Job job, OutputStream output) throws IOException, InterruptedException {
+        synchronized (this) {
+            if (closed)
+                throw new IOException("coordinator closed");
+            enqueue(job);
+        }
+        dispatch();
+        try {
+            while (true) {
+                var event = job.events.take();
+                if (event instanceof byte[] chunk) {
+                    output.write(chunk);
+                } else if (event == Job.END) {
+                    return;
+                } else if (event instanceof IOException ex) {
+                    throw ex;
+                } else {
+                    throw (RuntimeException) event;
+                }
+            }
+        } catch (InterruptedException | IOException | RuntimeException ex) {
+            cancel(job);
+            throw ex;
+        }
+    }
+
+    /** Capabilities of the connected workers, unknown if none is connected or they differ. */
+    @Override
+    public synchronized Capabilities capabilities() {
+        if (links.isEmpty())
+            return Capabilities.UNKNOWN;
+        var first = links.get(0).capabilities;
+        for (var link : links) {
+            if (!link.capabilities.text().equals(first.text()))
+                return Capabilities.UNKNOWN;
+        }
+        return first;
+    }
+
+    /** Waits until a worker is connected. */
+    @Override
+    public boolean available() {
+        var end = System.nanoTime() + CONNECT_TIMEOUT.toNanos();
+        synchronized (this) {
+            while (links.isEmpty() && !closed) {
+                var remaining = end - System.nanoTime();
+                if (remaining <= 0)
+                    return false;
+                try {
+                    wait(remaining / 1_000_000 + 1);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return !closed;
+        }
+    }
+
+    /** Stops accepting workers, disconnects the connected ones, fails the open jobs. */
+    @Override
+    public void close() throws IOException {
+        List<Link> closing;
+        List<Job> failing = new ArrayList<>();
+        synchronized (this) {
+            closed = true;
+            closing = new ArrayList<>(links);
+            links.clear();
+            failing.addAll(pending);
+            pending.clear();
+            for (var link : closing) {
+                failing.addAll(link.queue);
+                failing.addAll(link.running.values());
+            }
+            notifyAll();
+        }
+        server.close();
+        for (var link : closing) {
+            link.close();
+        }
+        failing.forEach(job -> job.fail(new IOException("coordinator closed")));
+        processes.forEach(Process::destroy);
+    }
+
+    //----------------------------------------------------------------------------------------------
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                var socket = server.accept();
+                var link = new Link(socket);
+                synchronized (this) {
+                    if (closed) {
+                        link.close();
+                        return;
+                    }
+                    links.add(link);
+                    while (!pending.isEmpty()) {
+                        enqueue(pending.poll());
+                    }
+                    notifyAll();
+                }
+                var reader = new Thread(() -> link.read(), "worker " + link.name);
+                reader.setDaemon(true);
+                reader.start();
+                dispatch();
+            } catch (SocketException ex) {
+                // closed
+            } catch (IOException ex) {
+                System.err.printf("worker rejected: %s%n", ex);
+            }
+        }
+    }
+
+    /** Queues the job at the worker with the fewest jobs. */
+    private void enqueue(Job job) {
+        assert Thread.holdsLock(this);
+        links.stream()
+            .min(Comparator.comparingInt(Link::load))
+            .map(link -> link.queue)
+            .orElse(pending)
+            .add(job);
+    }
+
+    /** Sends queued jobs to workers with free capacity, stealing from the busiest worker. */
+    private void dispatch() {
+        var sends = new ArrayList<Map.Entry<Link, Job>>();
+        synchronized (this) {
+            for (var link : links) {
+                while (link.running.size() < link.capacity) {
+                    var job = link.queue.pollFirst();
+                    if (job == null) {
+                        job = links.stream()
+                            .filter(other -> !other.queue.isEmpty())
+                            .max(Comparator.comparingInt(other -> other.queue.size()))
+                            .map(other -> other.queue.pollLast())
+                            .orElse(null);
+                    }
+                    if (job == null)
+                        break;
+                    job.attempts += 1;
+                    link.running.put(job.id, job);
+                    sends.add(Map.entry(link, job));
+                }
+            }
+        }
+        for (var send : sends) {
+            try {
+                send.getKey().send(send.getValue());
+            } catch (IOException ex) {
+                lost(send.getKey(), ex);
+            }
+        }
+    }
+
+    /** Requeues the jobs of a lost worker, failing the ones already streamed or tried too often. */
+    private void lost(Link link, Exception cause) {
+        link.close();
+        var failing = new ArrayList<Job>();
+        synchronized (this) {
+            if (!links.remove(link))
+                return;
+            var requeue = new ArrayList<>(link.queue);
+            for (var job : link.running.values()) {
+                if (job.streamed || job.attempts >= MAX_ATTEMPTS) {
+                    failing.add(job);
+                } else {
+                    requeue.add(job);
+                }
+            }
+            link.queue.clear();
+            link.running.clear();
+            requeue.forEach(this::enqueue);
+        }
+        failing.forEach(job -> job.fail(
+            new IOException("worker " + link.name + " lost after " + job.attempts + " attempts", cause)));
+        dispatch();
+    }
+
+    /** Removes a job no longer waited for, a running render is cancelled on its worker. */
+    private void cancel(Job job) {
+        job.finished.set(true);
+        Link running = null;
+        synchronized (this) {
+            pending.remove(job);
+            for (var link : links) {
+                link.queue.remove(job);
+                if (link.running.remove(job.id) != null) {
+                    running = link;
+                }
+            }
+        }
+        if (running != null) {
+            try {
+                running.cancel(job.id);
+            } catch (IOException ex) {
+                lost(running, ex);
+            }
+        }
+        dispatch();
+    }
+
+    //==============================================================================================
+
+    private static final class Job {
+
+        /** Event signaling the successful end of the output. */
+        static final Object END = new Object();
+
+        final long id;
+        final Engine engine;
+        final Format format;
+        final byte[] script;
+        /** Output chunks followed by {@link #END} or the exception, taken by the calling thread. */
+        final BlockingQueue<Object> events = new LinkedBlockingQueue<>();
+        final AtomicBoolean finished = new AtomicBoolean();
+        int attempts = 0;
+        volatile boolean streamed = false;
+
+        Job(long id, Engine engine, Format format, byte[] script) {
+            this.id = id;
+            this.engine = requireNonNull(engine, "null engine");
+            this.format = requireNonNull(format, "null format");
+            this.script = script;
+        }
+
+        void chunk(byte[] chunk) {
+            if (!finished.get()) {
+                streamed = true;
+                events.add(chunk);
+            }
+        }
+
+        void complete() {
+            if (finished.compareAndSet(false, true)) {
+                events.add(END);
+            }
+        }
+
+        void fail(Exception exception) {
+            if (finished.compareAndSet(false, true)) {
+                events.add(exception);
+            }
+        }
+    }
+
+    /** Connection to a worker. */
+    private final class Link {
+
+        final Socket socket;
+        final DataInputStream input;
+        final DataOutputStream output;
+        final String name;
+        final int capacity;
+        final Capabilities capabilities;
+
+        // guarded by coordinator
+        final Deque<Job> queue = new ArrayDeque<>();
+        final Map<Long, Job> running = new ConcurrentHashMap<>();
+
+        Link(Socket socket) throws IOException {
+            this.socket = socket;
+            try {
+                socket.setTcpNoDelay(true);
+                socket.setSoTimeout((int) CONNECT_TIMEOUT.toMillis());
+                input = new DataInputStream(new BufferedInputStream(socket.getInputStream(), CHUNK_SIZE + 16));
+                output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                if (input.readInt() != MAGIC || input.readInt() != VERSION)
+                    throw new IOException("not a render worker: " + socket.getRemoteSocketAddress());
+                var nonce = new byte[NONCE_SIZE];
+                random.nextBytes(nonce);
+                output.write(nonce);
+                output.flush();
+                var answer = new byte[mac(secret, nonce).length];
+                input.readFully(answer);
+                if (!MessageDigest.isEqual(answer, mac(secret, nonce)))
+                    throw new IOException("wrong secret: " + socket.getRemoteSocketAddress());
+                capacity = input.readInt();
+                name = input.readUTF();
+                if (capacity < 1)
+                    throw new IOException("invalid capacity: " + capacity);
+                try {
+                    capabilities = Capabilities.parse(input.readUTF());
+                } catch (IllegalArgumentException ex) {
+                    throw new IOException(ex.getMessage(), ex);
+                }
+                output.writeInt(MAGIC);  // accepted
+                output.flush();
+                socket.setSoTimeout(0);
+            } catch (IOException ex) {
+                socket.close();
+                throw ex;
+            }
+        }
+
+        int load() {
+            return queue.size() + running.size();
+        }
+
+        void send(Job job) throws IOException {
+            synchronized (output) {
+                output.writeByte(JOB);
+                output.writeLong(job.id);
+                output.writeUTF(job.engine.name());
+                output.writeUTF(job.format.name());
+                output.writeInt(job.script.length);
+                output.write(job.script);
+                output.flush();
+            }
+        }
+
+        void cancel(long id) throws IOException {
+            synchronized (output) {
+                output.writeByte(CANCEL);
+                output.writeLong(id);
+                output.flush();
+            }
+        }
+
+        /** Reads the frames sent by the worker until the connection is lost. */
+        void read() {
+            try {
+                while (true) {
+                    var type = input.readByte();
+                    var id = input.readLong();
+                    switch (type) {
+                        case CHUNK -> {
+                            var length = input.readInt();
+                            if (length < 0 || length > CHUNK_SIZE)
+                                throw new IOException("invalid chunk length: " + length);
+                            var chunk = new byte[length];
+                            input.readFully(chunk);
+                            var job = running.get(id);
+                            if (job != null) {
+                                job.chunk(chunk);
+                            }
+                        }
+                        case END -> finish(id, null);
+                        case ERROR -> finish(id, input.readUTF());
+                        default -> throw new IOException("unexpected frame: " + type);
+                    }
+                }
+            } catch (IOException ex) {
+                lost(this, ex);
+            }
+        }
+
+        /** Completes the job, failed if an error message is given; not retried as Graphviz would fail again. */
+        private void finish(long id, String error) {
+            Job job;
+            synchronized (RenderCoordinator.this) {
+                job = running.remove(id);
+            }
+            if (job != null) {
+                if (error == null) {
+                    job.complete();
+                } else {
+                    job.fail(new RuntimeException(
+                        "dot to " + job.format + " conversion failed on worker " + name + ": " + error));
+                }
+            }
+            dispatch();
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // closing anyway
+            }
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright: Carlos F. Heuberger. All rights reserved.
+ *
+ */
+package cfh.jgraphviz.server;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import cfh.jgraphviz.Backend;
+import cfh.jgraphviz.Dot;
+import cfh.jgraphviz.Dot.Engine;
+import cfh.jgraphviz.Dot.Format;
+
+/**
+ * HTTP server rendering DOT scripts, used by {@link RemoteBackend}.
+ * 
+ * <code>POST /render?engine=DOT&amp;format=PNG</code> with the script as body returns the output; 
+ * <code>GET /health</code> just returns 200. 
+ * Renders exceeding the running and queued limits are rejected with 503.
+ *
+ * @author Carlos F. Heuberger, 2026-10-19
+ *
+ */
+public class RenderServer {
+
+    static final String RENDER_PATH = "/render";
+    static final String HEALTH_PATH = "/health";
+    
+    static final int DEFAULT_PORT = 8765;
+    
+    /** Starts a server, optional arguments: port, running renders, queued renders. */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int running = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int queued = args.length > 2 ? Integer.parseInt(args[2]) : 4 * running;
+        var server = new RenderServer(new InetSocketAddress(port), Dot.backend(), running, queued).start();
+        System.out.printf("render server listening on %s%n", server.address());
+    }
+    
+    //==============================================================================================
+    
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Backend backend;
+    
+    /** Limits renders waiting or running. */
+    private final Semaphore admission;
+    /** Limits renders running. */
+    private final Semaphore renders;
+    
+    public RenderServer(InetSocketAddress address, Backend backend, int running, int queued) throws IOException {
+        if (running < 1 || queued < 0) 
+            throw new IllegalArgumentException("invalid limits: " + running + ", " + queued);
+        this.backend = requireNonNull(backend, "null backend");
+        this.admission = new Semaphore(running + queued);
+        this.renders = new Semaphore(running, true);
+        
+        executor = newExecutor();
+        server = HttpServer.create(address, 0);
+        server.setExecutor(executor);
+        server.createContext(RENDER_PATH, this::render);
+        server.createContext(HEALTH_PATH, this::health);
+    }
+    
+    public RenderServer start() {
+        server.start();
+        return this;
+    }
+    
+    /** Stops the server, waiting at most given seconds for running renders. */
+    public void stop(int delay) {
+        server.stop(delay);
+        executor.shutdown();
+    }
+    
+    public InetSocketAddress address() {
+        return server.getAddress();
+    }
+    
+    //----------------------------------------------------------------------------------------------
+    
+    private void health(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            exchange.sendResponseHeaders(200, -1);
+        }
+    }
+    
+    /** 
+     * Renders the request body. A render failing after the output started is thrown without 
+     * closing the exchange: the server then closes the connection, the unterminated chunked
+     * body tells the client the response is incomplete.
+     */
+    private void render(HttpExchange exchange) throws IOException {
+        var aborted = false;
+        try {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                error(exchange, 405, "POST expected");
+                return;
+            }
+            Engine engine;
+            Format format;
+            try {
+                var query = query(exchange.getRequestURI().getRawQuery());
+                engine = Engine.valueOf(query.getOrDefault("engine", Engine.DOT.name()));
+                format = Format.valueOf(requireNonNull(query.get("format"), "missing format"));
+                backend.capabilities().require(engine, format);
+            } catch (IllegalArgumentException | NullPointerException ex) {
+                error(exchange, 400, ex.getMessage());
+                return;
+            }
+            
+            if (!admission.tryAcquire()) {
+                error(exchange, 503, "too many renders");
+                return;
+            }
+            try {
+                renders.acquire();
+                try (InputStream input = exchange.getRequestBody()) {
+                    var output = new ResponseStream(exchange, contentType(format));
+                    try {
+                        backend.dot(engine, format, input, output);
+                        output.commit();
+                    } catch (IOException | RuntimeException ex) {
+                        // e.g. Graphviz missing or failed, reported while the headers are not sent yet
+                        if (output.committed()) {
+                            aborted = true;
+                            throw ex;
+                        }
+                        error(exchange, 500, ex.getMessage());
+                    }
+                } finally {
+                    renders.release();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                error(exchange, 503, "interrupted");
+            } finally {
+                admission.release();
+            }
+        } finally {
+            if (!aborted) {
+                exchange.close();
+            }
+        }
+    }
+    
+    private static void error(HttpExchange exchange, int status, String message) throws IOException {
+        var bytes = String.valueOf(message).getBytes(UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (var body = exchange.getResponseBody()) {
+            body.write(bytes);
+        }
+    }
+    
+    private static Map<String, String> query(String query) {
+        var result = new HashMap<String, String>();
+        if (query != null) {
+            for (var param : query.split("&")) {
+                var index = param.indexOf('=');
+                if (index > 0) {
+                    result.put(URLDecoder.decode(param.substring(0, index), UTF_8), URLDecoder.decode(param.substring(index+1), UTF_8));
+                }
+            }
+        }
+        return result;
+    }
+    
+    private static String contentType(Format format) {
+        return switch (format) {
+            case PNG -> "image/png";
+            case JPG, JPEG -> "image/jpeg";
+            case GIF -> "image/gif";
+            case SVG -> "image/svg+xml";
+            case PDF -> "application/pdf";
+            case JSON, JSON0, DOT_JSON, XDOT_JSON -> "application/json";
+            default -> "application/octet-stream";
+        };
+    }
+    
+    /** Virtual threads if available (Java 21), else a cached thread pool. */
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+    
+    //==============================================================================================
+    
+    /** Response body, headers are only sent with the first output so errors can still be reported. */
+    private static final class ResponseStream extends OutputStream {
+        
+        private final HttpExchange exchange;
+        private final String contentType;
+        private OutputStream body = null;
+        
+        ResponseStream(HttpExchange exchange, String contentType) {
+            this.exchange = exchange;
+            this.contentType = contentType;
+        }
+        
+        boolean committed() {
+            return body != null;
+        }
+        
+        void commit() throws IOException {
+            body().flush();
+        }
+        
+        private OutputStream body() throws IOException {
+            if (body == null) {
+                exchange.getResponseHeaders().set("Content-Type", contentType);
+                exchange.sendResponseHeaders(200, 0);  // chunked
+                body = exchange.getResponseBody();
+            }
+            return body;
+        }
+        
+        @Override
+        public void write(int b) throws IOException {
+            body().write(b);
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            body().write(b, off, len);
+        }
+    }
+}
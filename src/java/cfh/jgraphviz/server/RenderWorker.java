@@ -0,0 +1,219 @@
+/*
+ * Copyright: Carlos F. Heuberger. All rights reserved.
+ *
+ */
+package cfh.jgraphviz.server;
+
+import static cfh.jgraphviz.server.RenderCoordinator.*;
+import static java.util.Objects.*;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import cfh.jgraphviz.Backend;
+import cfh.jgraphviz.Dot;
+import cfh.jgraphviz.Dot.Engine;
+import cfh.jgraphviz.Dot.Format;
+
+/**
+ * Worker JVM rendering jobs for a {@link RenderCoordinator}, the output is streamed back in chunks.
+ *
+ * The worker connects to the coordinator and runs until the connection is closed.
+ * It proves to know the coordinator's secret, given by the <code>GraphSecret</code> property 
+ * or the <code>GRAPH_SECRET</code> environment variable.
+ *
+ * @author Carlos F. Heuberger, 2026-10-19
+ *
+ */
+public class RenderWorker {
+
+    /** Starts a worker, arguments: coordinator host, port, optional concurrent renders. */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2)
+            throw new IllegalArgumentException("usage: RenderWorker host port [renders]");
+        var address = new InetSocketAddress(args[0], Integer.parseInt(args[1]));
+        int renders = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        var secret = configuredSecret();
+        if (secret == null)
+            throw new IllegalArgumentException("missing secret: " + SECRET_PROPERTY + " property or " + SECRET_ENVIRONMENT + " environment");
+        new RenderWorker(address, secret, Dot.backend(), renders).run();
+    }
+
+    //==============================================================================================
+
+    private final InetSocketAddress coordinator;
+    private final byte[] secret;
+    private final Backend backend;
+    private final int renders;
+    private final ExecutorService executor;
+    /** Running renders by job id, to be cancelled. */
+    private final Map<Long, Future<?>> running = new ConcurrentHashMap<>();
+
+    private DataOutputStream output;
+
+    public RenderWorker(InetSocketAddress coordinator, String secret, Backend backend, int renders) {
+        if (renders < 1)
+            throw new IllegalArgumentException("invalid renders: " + renders);
+        this.coordinator = requireNonNull(coordinator, "null coordinator");
+        this.secret = requireNonNull(secret, "null secret").getBytes(StandardCharsets.UTF_8);
+        this.backend = requireNonNull(backend, "null backend");
+        this.renders = renders;
+        this.executor = Executors.newFixedThreadPool(renders);
+    }
+
+    /** Connects and renders the received jobs until the coordinator closes the connection. */
+    public void run() throws IOException {
+        try (var socket = new Socket()) {
+            socket.connect(coordinator, (int) CONNECT_TIMEOUT.toMillis());
+            socket.setTcpNoDelay(true);
+            var input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), CHUNK_SIZE + 16));
+            synchronized (output) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.flush();
+                var nonce = new byte[NONCE_SIZE];
+                input.readFully(nonce);
+                output.write(mac(secret, nonce));
+                output.writeInt(renders);
+                output.writeUTF(ProcessHandle.current().pid() + "@" + socket.getLocalAddress().getHostName());
+                output.writeUTF(backend.capabilities().text());
+                output.flush();
+            }
+            try {
+                if (input.readInt() != MAGIC)
+                    throw new IOException("not a render coordinator: " + coordinator);
+            } catch (EOFException ex) {
+                throw new IOException("rejected by coordinator, wrong secret?", ex);
+            }
+            while (true) {
+                byte type;
+                try {
+                    type = input.readByte();
+                } catch (EOFException ex) {
+                    break;
+                }
+                var id = input.readLong();
+                if (type == CANCEL) {
+                    var render = running.remove(id);
+                    if (render != null) {
+                        render.cancel(true);
+                    }
+                    continue;
+                }
+                if (type != JOB)
+                    throw new IOException("unexpected frame: " + type);
+                var engine = Engine.valueOf(input.readUTF());
+                var format = Format.valueOf(input.readUTF());
+                var script = new byte[input.readInt()];
+                input.readFully(script);
+                var render = new FutureTask<Void>(() -> {
+                    try {
+                        render(id, engine, format, script);
+                    } finally {
+                        running.remove(id);
+                    }
+                    return null;
+                });
+                running.put(id, render);
+                executor.execute(render);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void render(long id, Engine engine, Format format, byte[] script) {
+        try {
+            try (var chunks = new ChunkStream(id)) {
+                backend.dot(engine, format, new ByteArrayInputStream(script), chunks);
+            }
+            synchronized (output) {
+                output.writeByte(END);
+                output.writeLong(id);
+                output.flush();
+            }
+        } catch (IOException | InterruptedException | RuntimeException ex) {
+            try {
+                synchronized (output) {
+                    output.writeByte(ERROR);
+                    output.writeLong(id);
+                    output.writeUTF(String.valueOf(ex.getMessage()));
+                    output.flush();
+                }
+            } catch (IOException ignored) {
+                // connection lost, the coordinator retries the job
+            }
+        }
+    }
+
+    //==============================================================================================
+
+    /** Sends the written bytes as chunks of at most {@link RenderCoordinator#CHUNK_SIZE}. */
+    private final class ChunkStream extends OutputStream {
+
+        private final long id;
+        private final byte[] buffer = new byte[CHUNK_SIZE];
+        private int count = 0;
+
+        ChunkStream(long id) {
+            this.id = id;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                flush();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length) {
+                    flush();
+                }
+                var n = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (count > 0) {
+                synchronized (output) {
+                    output.writeByte(CHUNK);
+                    output.writeLong(id);
+                    output.writeInt(count);
+                    output.write(buffer, 0, count);
+                    output.flush();
+                }
+                count = 0;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright: Carlos F. Heuberger. All rights reserved.
+ *
+ */
+package cfh.jgraphviz.ui;
+
+import static cfh.jgraphviz.Dot.*;
+import static java.util.Objects.*;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+import cfh.jgraphviz.Backend;
+import cfh.jgraphviz.Dot;
+import cfh.jgraphviz.Dot.Engine;
+import cfh.jgraphviz.Dot.Format;
+import cfh.jgraphviz.Graph;
+import cfh.jgraphviz.Images;
+
+/**
+ * Component showing a graph, rendered in background so the event dispatch thread never waits for Graphviz.
+ *
+ * Changes of graph or zoom are debounced: the render starts only after no further change
+ * for {@link #DEBOUNCE_MS}, a running render of a previous change is cancelled. Until the new
+ * image arrives, the previous one is shown, scaled to the current zoom. The images of the
+ * last {@link #CACHE_SIZE} zoom levels of the current graph are kept, so zooming back is immediate.
+ * The graph is {@link Graph#freeze() frozen} once, in background, before its first render; 
+ * statements added lazily, e.g. from a stream, are read only once.
+ * A cancelled render stops only if the backend stops on interrupt, as the process backend 
+ * does by destroying the Graphviz process; otherwise the next render waits for it.
+ *
+ * A property change for {@link #IMAGE_PROPERTY} is fired whenever a new image is shown.
+ * All methods must be called on the event dispatch thread. The graph must not be changed
+ * after being set, set it again to show changes; it is then frozen again.
+ *
+ * @author Carlos F. Heuberger, 2026-10-19
+ *
+ */
+@SuppressWarnings("serial")
+public class GraphViewer extends JComponent {
+
+    public static final int DEBOUNCE_MS = 200;
+    public static final int CACHE_SIZE = 8;
+
+    /** Bound property fired when the shown image changes. */
+    public static final String IMAGE_PROPERTY = "image";
+
+    /** Resolution of zoom 1, Graphviz default for bitmap output. */
+    static final double DPI = 96;
+
+    private static final double MIN_ZOOM = 0.05;
+    private static final double MAX_ZOOM = 20;
+
+    private final Backend backend;
+    private final Engine engine;
+    private final Format format;
+    private final ExecutorService executor;
+    private final Timer debounce;
+
+    private final Map<Double, BufferedImage> cache = new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Double, BufferedImage> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private Graph graph = null;
+    private double zoom = 1;
+
+    private BufferedImage image = null;
+    private double imageZoom = 1;
+    private Exception failure = null;
+
+    private long generation = 0;
+    private Future<?> pending = null;
+    /** Incremented whenever a graph is set, even the same one again. */
+    private long version = 0;
+
+    /** Version of the frozen copy, only used by the render thread. */
+    private long frozenVersion = -1;
+    private Graph frozen = null;
+
+    public GraphViewer(Engine engine) {
+        this(Dot.backend(), engine, Format.PNG);
+    }
+
+    /** Viewer rendering with given backend, the format must be readable by {@link Images#read(byte[])}. */
+    public GraphViewer(Backend backend, Engine engine, Format format) {
+        this.backend = requireNonNull(backend, "null backend");
+        this.engine = requireNonNull(engine, "null engine");
+        this.format = requireNonNull(format, "null format");
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            var thread = new Thread(runnable, "graph-viewer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        debounce = new Timer(DEBOUNCE_MS, ev -> render());
+        debounce.setRepeats(false);
+        setBackground(Color.WHITE);
+        setOpaque(true);
+    }
+
+    /** The graph being shown, {@code null} if none. */
+    public Graph graph() {
+        return graph;
+    }
+
+    /** Shows given graph, discarding cached images of the previous one; {@code null} to clear. */
+    public void graph(Graph graph) {
+        checkThread();
+        this.graph = graph;
+        version += 1;
+        cache.clear();
+        failure = null;
+        if (graph == null) {
+            cancel();
+            show(null, zoom);
+        } else {
+            debounce.restart();
+        }
+    }
+
+    public double zoom() {
+        return zoom;
+    }
+
+    /** Changes the zoom, 1 being the Graphviz default resolution. */
+    public void zoom(double zoom) {
+        checkThread();
+        if (!(zoom >= MIN_ZOOM && zoom <= MAX_ZOOM))
+            throw new IllegalArgumentException("invalid zoom: " + zoom);
+        this.zoom = zoom;
+        var cached = cache.get(zoom);
+        if (cached != null) {
+            cancel();
+            debounce.stop();
+            show(cached, zoom);
+        } else {
+            if (graph != null) {
+                debounce.restart();
+            }
+            revalidate();
+            repaint();
+        }
+    }
+
+    /** Error of the last render, {@code null} if it succeeded. */
+    public Exception failure() {
+        return failure;
+    }
+
+    /** Stops rendering, the viewer cannot be used afterwards. */
+    public void dispose() {
+        checkThread();
+        debounce.stop();
+        cancel();
+        executor.shutdown();
+    }
+
+    //----------------------------------------------------------------------------------------------
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (isPreferredSizeSet() || image == null)
+            return super.getPreferredSize();
+        var scale = zoom / imageZoom;
+        return new Dimension((int) Math.ceil(image.getWidth() * scale), (int) Math.ceil(image.getHeight() * scale));
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        if (isOpaque()) {
+            g.setColor(getBackground());
+            g.fillRect(0, 0, getWidth(), getHeight());
+        }
+        if (image != null) {
+            if (imageZoom == zoom) {
+                g.drawImage(image, 0, 0, this);
+            } else {
+                var gg = (Graphics2D) g.create();
+                try {
+                    gg.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                    var scale = zoom / imageZoom;
+                    gg.drawImage(image, 0, 0, (int) (image.getWidth() * scale), (int) (image.getHeight() * scale), this);
+                } finally {
+                    gg.dispose();
+                }
+            }
+        }
+        if (failure != null) {
+            g.setColor(Color.RED);
+            g.drawString(String.valueOf(failure.getMessage()), 4, g.getFontMetrics().getAscent() + 4);
+        }
+    }
+
+    //----------------------------------------------------------------------------------------------
+
+    /** Starts the render of the current graph and zoom, superseding any running one. */
+    private void render() {
+        if (graph == null)
+            return;
+        cancel();
+        long current = generation;
+        long renderedVersion = version;
+        var rendered = graph;
+        var renderedZoom = zoom;
+        pending = executor.submit(() -> {
+            BufferedImage result = null;
+            Exception error = null;
+            try {
+                if (frozenVersion != renderedVersion) {
+                    frozen = rendered.freeze();
+                    frozenVersion = renderedVersion;
+                }
+                if (Thread.interrupted())
+                    return;
+                var output = new ByteArrayOutputStream();
+                frozen.render(backend, engine, format, List.of(dpi(DPI * renderedZoom)), output);
+                result = Images.read(output.toByteArray());
+                if (result == null) {
+                    error = new IOException("no decoder for " + format);
+                }
+            } catch (InterruptedException ex) {
+                return;
+            } catch (IOException | RuntimeException ex) {
+                error = ex;
+            }
+            var image = result;
+            var exception = error;
+            SwingUtilities.invokeLater(() -> finished(current, renderedVersion, renderedZoom, image, exception));
+        });
+    }
+
+    private void finished(long current, long renderedVersion, double renderedZoom, BufferedImage result, Exception error) {
+        if (current != generation || renderedVersion != version)
+            return;
+        pending = null;
+        failure = error;
+        if (result != null) {
+            cache.put(renderedZoom, result);
+            show(result, renderedZoom);
+        } else {
+            repaint();
+        }
+    }
+
+    private void show(BufferedImage result, double resultZoom) {
+        var old = image;
+        image = result;
+        imageZoom = resultZoom;
+        revalidate();
+        repaint();
+        firePropertyChange(IMAGE_PROPERTY, old, result);
+    }
+
+    /** Cancels the running render, interrupting it, its result is discarded. */
+    private void cancel() {
+        generation += 1;
+        if (pending != null) {
+            pending.cancel(true);
+            pending = null;
+        }
+    }
+
+    private static void checkThread() {
+        if (!SwingUtilities.isEventDispatchThread())
+            throw new IllegalStateException("not on event dispatch thread");
+    }
+}
@@ -7,10 +7,10 @@ package cfh.jgraphviz.check;
 import static cfh.jgraphviz.Dot.*;
 
 import java.awt.GridLayout;
-import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.function.Function;
+import java.util.concurrent.CompletableFuture;
 
 import javax.swing.ImageIcon;
 import javax.swing.JFrame;
@@ -20,6 +20,7 @@ import javax.swing.JScrollPane;
 import javax.swing.SwingUtilities;
 
 import cfh.jgraphviz.Graph;
+import cfh.jgraphviz.ui.GraphViewer;
 
 /**
  * @author Carlos F. Heuberger, 2023-03-03
@@ -34,36 +35,58 @@ public class DotCheck {
     //==============================================================================================
 
     private final JFrame frame;
+    private final List<GraphViewer> viewers = new ArrayList<>();
 
     private DotCheck() {
+        frame = new JFrame();
+        frame.setDefaultCloseOperation(frame.DISPOSE_ON_CLOSE);
+
         var allPanel = new JPanel();
         allPanel.setLayout(new GridLayout(0, 1));
         
-        try {
-            var dot = """
-                digraph {
-                  label="old interface"
-                  { A ->  { B C} } -> D
-                }
-                """;
-            System.out.println(dot);
-            allPanel.add(new JLabel(new ImageIcon(dotToImage(JPG, dot))));
-        } catch (IOException | InterruptedException ex) {
-            throw new RuntimeException(ex);
-        }
+        var dot = """
+            digraph {
+              label="old interface"
+              { A ->  { B C} } -> D
+            }
+            """;
+        System.out.println(dot);
+        var old = new JLabel();
+        allPanel.add(old);
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return dotToImage(JPG, dot);
+            } catch (IOException | InterruptedException ex) {
+                throw new RuntimeException(ex);
+            }
+        }).thenAccept(image -> SwingUtilities.invokeLater(() -> {
+            old.setIcon(new ImageIcon(image));
+            frame.pack();
+        }));
         
         List<List<Graph>> list = createGraphs();
 
-        Function<Graph, BufferedImage> dotToJpg = g -> g.visit(System.out::println).image(JPG);
-        for (var images : list) {
+        for (var graphs : list) {
             System.out.println("======================================");
             var panel = new JPanel();
-            images.stream().map(dotToJpg).map(ImageIcon::new).map(JLabel::new).forEach(panel::add);
+            for (var graph : graphs) {
+                var viewer = new GraphViewer(Engine.DOT);
+                viewer.addPropertyChangeListener(GraphViewer.IMAGE_PROPERTY, ev -> frame.pack());
+                viewer.graph(graph.visit(System.out::println));
+                viewers.add(viewer);
+                panel.add(viewer);
+            }
             allPanel.add(panel);
         }
-
-        frame = new JFrame();
-        frame.setDefaultCloseOperation(frame.DISPOSE_ON_CLOSE);
+        // ctrl + wheel zooms all graphs, rendered in background
+        allPanel.addMouseWheelListener(ev -> {
+            if (ev.isControlDown()) {
+                for (var viewer : viewers) {
+                    var zoom = viewer.zoom() * Math.pow(1.25, -ev.getWheelRotation());
+                    viewer.zoom(Math.max(0.25, Math.min(4, zoom)));
+                }
+            }
+        });
 
         frame.add(new JScrollPane(allPanel));
 
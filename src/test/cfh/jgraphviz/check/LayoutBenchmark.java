@@ -0,0 +1,518 @@
+/*
+ * Copyright: Carlos F. Heuberger. All rights reserved.
+ *
+ */
+package cfh.jgraphviz.check;
+
+import static cfh.jgraphviz.Dot.*;
+import static java.util.Objects.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import cfh.jgraphviz.Backend;
+import cfh.jgraphviz.Dot;
+import cfh.jgraphviz.Dot.Engine;
+import cfh.jgraphviz.Dot.Format;
+import cfh.jgraphviz.Graph;
+import cfh.jgraphviz.Graph.Counts;
+import cfh.jgraphviz.NodeId;
+import cfh.jgraphviz.Placement;
+
+/**
+ * End-to-end layout benchmark, runs reproducible graph families of increasing size
+ * through the engines and formats, writing a tab separated report.
+ *
+ * <pre>
+ * LayoutBenchmark [-families TREE,GRID] [-sizes 100,1000] [-engines DOT,SFDP] [-formats SVG,PNG]
+ *                 [-repeat 3] [-timeout 120] [-warmstart true] [-compact true] [-out report.tsv]
+ *                 [-backends cfh.jgraphviz.GvcBackend,...]
+ * LayoutBenchmark -compare baseline.tsv current.tsv [-tolerance 0.2]
+ * </pre>
+ *
+ * With {@code -warmstart true}, force directed engines are run a second time with the initial
+ * positions of {@link Placement}, reported as engine {@code NEATO+warm} and so on.
+ * With {@code -compact true}, all engines are also run with the {@link Graph#compact() compact} script,
+ * reported as {@code DOT+compact} and so on; the script size is reported in bytes.
+ * The parse time is the best time to read the script and write it back as {@link Format#CANON canon},
+ * without layout and rendering.
+ * With {@code -backends}, each run is repeated with each named {@link Backend} class, the engine
+ * is reported with the simple class name, like {@code DOT@GvcBackend}; the process backend is
+ * named {@code ProcessBackend}.
+ * Peak RSS is the highest resident set of the Graphviz processes, sampled from {@code /proc}
+ * (Linux only, {@code -1} elsewhere and for in-process backends).
+ *
+ * @author Carlos F. Heuberger, 2026-10-19
+ *
+ */
+public class LayoutBenchmark {
+
+    private static final String HEADER =
+        "family\tsize\tnodes\tedges\tengine\tformat\tscript_bytes\tscript_ms\tparse_ms\tplacement_ms\tlayout_ms\tpeak_rss_kb\toutput_bytes\tstatus";
+
+    private static final long SEED = 20261019L;
+
+    public static void main(String[] args) throws Exception {
+        var options = options(args);
+        if (options.containsKey("compare")) {
+            var files = options.get("compare").split(",");
+            if (files.length != 2)
+                throw new IllegalArgumentException("usage: -compare baseline.tsv current.tsv");
+            var tolerance = Double.parseDouble(options.getOrDefault("tolerance", "0.2"));
+            System.exit(compare(Path.of(files[0]), Path.of(files[1]), tolerance, System.out) ? 0 : 1);
+        }
+
+        var benchmark = new LayoutBenchmark(
+            list(options.get("families"), Family::valueOf, Family.values()),
+            list(options.get("sizes"), Integer::valueOf, new Integer[] { 100, 300, 1000, 3000 }),
+            list(options.get("engines"), Engine::valueOf, Engine.values()),
+            list(options.get("formats"), Format::valueOf, new Format[] { Format.SVG, Format.PNG }),
+            Integer.parseInt(options.getOrDefault("repeat", "3")),
+            Integer.parseInt(options.getOrDefault("timeout", "120")),
+            Boolean.parseBoolean(options.getOrDefault("warmstart", "false")),
+            Boolean.parseBoolean(options.getOrDefault("compact", "false")),
+            list(options.get("backends"), LayoutBenchmark::backend, new Backend[0]));
+
+        var out = options.get("out");
+        if (out == null) {
+            benchmark.run(System.out);
+        } else {
+            try (var report = new PrintStream(Files.newOutputStream(Path.of(out)), true, StandardCharsets.UTF_8)) {
+                benchmark.run(report);
+            }
+        }
+    }
+
+    /** Parses {@code -name value} pairs, {@code -compare} takes two values. */
+    private static Map<String, String> options(String[] args) {
+        var options = new LinkedHashMap<String, String>();
+        for (var i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("-") || i+1 >= args.length)
+                throw new IllegalArgumentException("invalid argument: " + args[i]);
+            var name = args[i].substring(1);
+            var value = args[++i];
+            if (name.equals("compare") && i+1 < args.length) {
+                value += "," + args[++i];
+            }
+            options.put(name, value);
+        }
+        return options;
+    }
+
+    /** Creates the named backend, {@code ProcessBackend} for the default process backend. */
+    private static Backend backend(String name) {
+        if (name.equals("ProcessBackend"))
+            return Backend.process();
+        try {
+            var backend = (Backend) Class.forName(name).getDeclaredConstructor().newInstance();
+            if (!backend.available())
+                throw new IllegalArgumentException("backend not available: " + name);
+            return backend;
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalArgumentException("invalid backend: " + name, ex);
+        }
+    }
+
+    private static <T> List<T> list(String text, Function<String, T> parser, T[] defaults) {
+        if (text == null)
+            return List.of(defaults);
+        return Arrays.stream(text.split(",")).map(String::strip).map(parser).toList();
+    }
+
+    //==============================================================================================
+
+    /** Reproducible graph families, the same size always generates the same graph. */
+    public enum Family {
+        /** Binary tree. */
+        TREE {
+            @Override
+            Graph generate(int size, Random random) {
+                var graph = graph("tree").directed();
+                var nodes = nodes(graph, size);
+                for (var i = 1; i < size; i++) {
+                    graph.add(nodes[(i-1) / 2].to(nodes[i]));
+                }
+                return graph;
+            }
+        },
+        /** Square grid, undirected. */
+        GRID {
+            @Override
+            Graph generate(int size, Random random) {
+                var graph = graph("grid");
+                var side = (int) Math.ceil(Math.sqrt(size));
+                var nodes = nodes(graph, size);
+                for (var i = 0; i < size; i++) {
+                    if ((i+1) % side != 0 && i+1 < size) {
+                        graph.add(nodes[i].to(nodes[i+1]));
+                    }
+                    if (i+side < size) {
+                        graph.add(nodes[i].to(nodes[i+side]));
+                    }
+                }
+                return graph;
+            }
+        },
+        /** Preferential attachment (Barabasi-Albert), two edges per new node. */
+        SCALE_FREE {
+            @Override
+            Graph generate(int size, Random random) {
+                var graph = graph("scalefree");
+                var nodes = nodes(graph, size);
+                var targets = new int[4 * size];
+                var count = 0;
+                for (var i = 1; i < size; i++) {
+                    for (var k = 0; k < Math.min(2, i); k++) {
+                        var target = count == 0 ? 0 : targets[random.nextInt(count)];
+                        graph.add(nodes[i].to(nodes[target]));
+                        targets[count++] = i;
+                        targets[count++] = target;
+                    }
+                }
+                return graph;
+            }
+        },
+        /** Layered DAG, each layer in its own cluster. */
+        CLUSTERED_DAG {
+            @Override
+            Graph generate(int size, Random random) {
+                var graph = graph("dag").directed();
+                var width = Math.max(2, (int) Math.sqrt(size));
+                var nodes = new NodeId[size];
+                for (var start = 0; start < size; start += width) {
+                    var layer = start / width;
+                    var cluster = subgraph("cluster_" + layer);
+                    cluster.with(label("layer " + layer));
+                    for (var i = start; i < Math.min(size, start+width); i++) {
+                        nodes[i] = node("n" + i);
+                        cluster.add(nodes[i]);
+                    }
+                    graph.add(cluster);
+                }
+                for (var i = width; i < size; i++) {
+                    var layerStart = (i / width - 1) * width;
+                    graph.add(nodes[layerStart + random.nextInt(width)].to(nodes[i]));
+                    if (random.nextBoolean()) {
+                        graph.add(nodes[layerStart + random.nextInt(width)].to(nodes[i]));
+                    }
+                }
+                return graph;
+            }
+        },
+        /** Random graph with average degree 8. */
+        DENSE_RANDOM {
+            @Override
+            Graph generate(int size, Random random) {
+                var graph = graph("dense");
+                var nodes = nodes(graph, size);
+                for (var i = 0; i < 4 * size; i++) {
+                    graph.add(nodes[random.nextInt(size)].to(nodes[random.nextInt(size)]));
+                }
+                return graph;
+            }
+        },
+        ;
+
+        abstract Graph generate(int size, Random random);
+
+        /** Generates the graph with given number of nodes. */
+        public Graph generate(int size) {
+            return generate(size, new Random(SEED + ordinal() * 31L + size));
+        }
+
+        private static NodeId[] nodes(Graph graph, int size) {
+            var nodes = new NodeId[size];
+            for (var i = 0; i < size; i++) {
+                nodes[i] = node("n" + i);
+                graph.add(nodes[i]);
+            }
+            return nodes;
+        }
+    }
+
+    //==============================================================================================
+
+    private final List<Family> families;
+    private final List<Integer> sizes;
+    private final List<Engine> engines;
+    private final List<Format> formats;
+    private final int repeat;
+    private final int timeout;
+    private final boolean warmStart;
+    private final boolean compact;
+    private final List<Backend> backends;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        var thread = new Thread(runnable, "layout");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    LayoutBenchmark(List<Family> families, List<Integer> sizes, List<Engine> engines, List<Format> formats, 
+                    int repeat, int timeout, boolean warmStart, boolean compact, List<Backend> backends) {
+        this.families = requireNonNull(families, "null families");
+        this.sizes = requireNonNull(sizes, "null sizes");
+        this.engines = requireNonNull(engines, "null engines");
+        this.formats = requireNonNull(formats, "null formats");
+        if (repeat < 1)
+            throw new IllegalArgumentException("invalid repeat: " + repeat);
+        this.repeat = repeat;
+        this.timeout = timeout;
+        this.warmStart = warmStart;
+        this.compact = compact;
+        this.backends = requireNonNull(backends, "null backends");
+    }
+
+    /** 
+     * Runs all combinations, an engine that timed out is skipped for larger sizes of the same family.
+     * With {@code warmStart}, force directed engines are also run after {@link Placement#warmStart}.
+     * With {@code compact}, all engines are also run with the compact script.
+     */
+    void run(PrintStream report) {
+        report.println(HEADER);
+        for (var family : families) {
+            var skipped = new HashSet<String>();
+            for (var size : sizes) {
+                var graph = family.generate(size);
+                var script = script(graph);
+                var counts = graph.counts();
+                for (var engine : engines) {
+                    layouts(report, family, size, counts, engine.name(), engine, script, 0, skipped);
+                    if (compact) {
+                        var compacted = script(family.generate(size).compact());
+                        layouts(report, family, size, counts, engine + "+compact", engine, compacted, 0, skipped);
+                    }
+                    if (warmStart && engine != Engine.DOT) {
+                        var placementTime = best(() -> Placement.warmStart(family.generate(size), engine));
+                        var placed = script(Placement.warmStart(family.generate(size), engine));
+                        layouts(report, family, size, counts, engine + "+warm", engine, placed, placementTime, skipped);
+                    }
+                }
+            }
+        }
+        executor.shutdownNow();
+    }
+
+    /** Runs all formats for one engine and script, with each backend. */
+    private void layouts(PrintStream report, Family family, int size, Counts counts, 
+                         String label, Engine engine, Script script, long placementTime, Set<String> skipped) {
+        if (backends.isEmpty()) {
+            layouts(report, family, size, counts, label, engine, script, placementTime, skipped, formats);
+        } else {
+            for (var backend : backends) {
+                Dot.backend(backend);
+                var name = label + "@" + backend.getClass().getSimpleName();
+                layouts(report, family, size, counts, name, engine, script, placementTime, skipped, formats);
+            }
+        }
+    }
+
+    private void layouts(PrintStream report, Family family, int size, Counts counts, String label, Engine engine, 
+                         Script script, long placementTime, Set<String> skipped, List<Format> formats) {
+        var parse = skipped.contains(label) ? new Result(-1, -1, -1, "skipped") : layout(engine, Format.CANON, script.bytes);
+        for (var format : formats) {
+            Result result;
+            if (skipped.contains(label)) {
+                result = new Result(-1, -1, -1, "skipped");
+            } else {
+                result = layout(engine, format, script.bytes);
+                if (result.status.equals("timeout")) {
+                    skipped.add(label);
+                }
+            }
+            report.printf(Locale.ROOT, "%s\t%d\t%d\t%d\t%s\t%s\t%d\t%.3f\t%.3f\t%.3f\t%.3f\t%d\t%d\t%s%n",
+                family, size, counts.nodes(), counts.edges(), label, format,
+                script.bytes.length, script.nanos / 1e6, parse.nanos / 1e6, placementTime / 1e6, result.nanos / 1e6, result.rss, result.size, result.status);
+        }
+    }
+
+    /** Script and best time to write it. */
+    private Script script(Graph graph) {
+        var text = new StringBuilder();
+        var nanos = best(() -> {
+            text.setLength(0);
+            try {
+                graph.write(text);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        return new Script(text, text.toString().getBytes(StandardCharsets.UTF_8), nanos);
+    }
+
+    /** Best of {@link #repeat} runs, in nanoseconds. */
+    private long best(Runnable task) {
+        var best = Long.MAX_VALUE;
+        for (var i = 0; i < repeat; i++) {
+            var start = System.nanoTime();
+            task.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    /** Best layout time of {@link #repeat} runs, with the highest peak RSS seen. */
+    private Result layout(Engine engine, Format format, byte[] script) {
+        var best = Long.MAX_VALUE;
+        var rss = -1L;
+        var size = 0L;
+        for (var i = 0; i < repeat; i++) {
+            var output = new CountingStream();
+            var sampler = new RssSampler();
+            var start = System.nanoTime();
+            var future = executor.submit(() -> {
+                dot(engine, format, new ByteArrayInputStream(script), output);
+                return null;
+            });
+            try {
+                future.get(timeout, TimeUnit.SECONDS);
+            } catch (TimeoutException ex) {
+                future.cancel(true);
+                ProcessHandle.current().descendants().forEach(ProcessHandle::destroyForcibly);
+                sampler.stop();
+                return new Result(-1, -1, -1, "timeout");
+            } catch (ExecutionException ex) {
+                sampler.stop();
+                return new Result(-1, -1, -1, "error: " + ex.getCause().getMessage().lines().findFirst().orElse(""));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(ex);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+            rss = Math.max(rss, sampler.stop());
+            size = output.count.get();
+        }
+        return new Result(best, rss, size, "ok");
+    }
+
+    //----------------------------------------------------------------------------------------------
+
+    private record Script(CharSequence text, byte[] bytes, long nanos) {}
+
+    private record Result(long nanos, long rss, long size, String status) {}
+
+    private static final class CountingStream extends OutputStream {
+        final AtomicLong count = new AtomicLong();
+        @Override
+        public void write(int b) {
+            count.incrementAndGet();
+        }
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count.addAndGet(len);
+        }
+    }
+
+    /** Samples the resident set of the child processes while running. */
+    private static final class RssSampler {
+
+        private static final boolean PROC = Files.isDirectory(Path.of("/proc/self"));
+
+        private final Thread thread;
+        private volatile boolean running = true;
+        private volatile long peak = -1;
+
+        RssSampler() {
+            thread = new Thread(this::sample, "rss sampler");
+            thread.setDaemon(true);
+            if (PROC) {
+                thread.start();
+            }
+        }
+
+        private void sample() {
+            while (running) {
+                ProcessHandle.current().descendants().forEach(process -> {
+                    peak = Math.max(peak, highWaterMark(process.pid()));
+                });
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException ex) {
+                    return;
+                }
+            }
+        }
+
+        /** Peak RSS in kB, {@code -1} if not available anymore. */
+        private static long highWaterMark(long pid) {
+            try {
+                for (var line : Files.readAllLines(Path.of("/proc", Long.toString(pid), "status"))) {
+                    if (line.startsWith("VmHWM:"))
+                        return Long.parseLong(line.replaceAll("\\D", ""));
+                }
+            } catch (IOException | NumberFormatException ex) {
+                // process terminated
+            }
+            return -1;
+        }
+
+        long stop() {
+            running = false;
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return peak;
+        }
+    }
+
+    //==============================================================================================
+
+    /** Compares two reports, printing layout time ratios; {@code false} if any run regressed beyond tolerance. */
+    static boolean compare(Path baseline, Path current, double tolerance, PrintStream out) throws IOException {
+        var base = read(baseline);
+        var ok = true;
+        out.println("family\tsize\tengine\tformat\tbase_ms\tcurrent_ms\tratio");
+        for (var entry : read(current).entrySet()) {
+            var before = base.get(entry.getKey());
+            var after = entry.getValue();
+            if (before == null || before <= 0 || after <= 0)
+                continue;
+            var ratio = after / before;
+            var regressed = ratio > 1 + tolerance;
+            ok &= !regressed;
+            out.printf(Locale.ROOT, "%s\t%.3f\t%.3f\t%.2f%s%n", entry.getKey(), before, after, ratio, regressed ? "\tREGRESSION" : "");
+        }
+        return ok;
+    }
+
+    /** Layout time by family, size, engine and format. */
+    private static Map<String, Double> read(Path report) throws IOException {
+        var lines = Files.readAllLines(report);
+        if (lines.isEmpty() || !lines.get(0).equals(HEADER))
+            throw new IOException("not a benchmark report: " + report);
+        var columns = List.of(HEADER.split("\t"));
+        var layout = columns.indexOf("layout_ms");
+        return lines.stream()
+            .skip(1)
+            .map(line -> line.split("\t"))
+            .collect(Collectors.toMap(
+                cells -> String.join("\t", cells[0], cells[1], cells[4], cells[5]),
+                cells -> Double.parseDouble(cells[layout]),
+                (a, b) -> b,
+                LinkedHashMap::new));
+    }
+}